@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openide.filesystems.FileObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the full lookup of a literal via
+ * {@link ResourceResolver#findFiles(ResolutionContext, String)} on synthetic
+ * projects of growing size.
+ *
+ * @author markiewb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResolverBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int files;
+    @Param({"false", "true"})
+    public boolean partialMatching;
+
+    private SyntheticProject project;
+    private ResourceIndex index;
+    private ResolutionContext ctx;
+    private ResolutionContext deepCtx;
+
+    @Setup
+    public void setUp() throws Exception {
+        project = new SyntheticProject(files);
+        index = project.awaitIndex();
+        ctx = ResolutionContext.create(project.getDocument(), project, index, ResolverOptions.create(partialMatching, false, false, false), 0);
+        deepCtx = ResolutionContext.create(project.getDocument(), project, index, ResolverOptions.create(partialMatching, true, false, false), 0);
+    }
+
+    @Benchmark
+    public List<FileObject> relativePath() {
+        return ResourceResolver.findFiles(ctx, "dir-0/file-1.txt");
+    }
+
+    @Benchmark
+    public List<FileObject> fileNameInCurrentDirectory() {
+        return ResourceResolver.findFiles(ctx, "Main-context.xml");
+    }
+
+    @Benchmark
+    public List<FileObject> partialFileName() {
+        return ResourceResolver.findFiles(ctx, "context");
+    }
+
+    @Benchmark
+    public List<FileObject> deepPartialFileName() {
+        return ResourceResolver.findFiles(deepCtx, "file-99");
+    }
+
+    @Benchmark
+    public List<FileObject> className() {
+        return ResourceResolver.findFiles(ctx, "com.foo.Main");
+    }
+
+    @Benchmark
+    public List<FileObject> notAResource() {
+        return ResourceResolver.findFiles(ctx, "Hello world, the answer is {0}");
+    }
+
+    @Benchmark
+    public Collection<FileObject> indexFindDeep() {
+        final RankedMatches sink = new RankedMatches(RankedMatches.DEFAULT_LIMIT, "file-99");
+        index.findDeep("file-99", sink);
+        return sink.toTopList();
+    }
+}
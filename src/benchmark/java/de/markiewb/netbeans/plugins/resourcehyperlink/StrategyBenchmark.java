@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openide.filesystems.FileObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures each {@link ResolutionStrategy} on its own, with partial and deep
+ * partial matching enabled, on synthetic projects of growing size.
+ *
+ * @author markiewb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StrategyBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int files;
+    @Param({"CURRENT_DIRECTORY", "CURRENT_DIRECTORY_PARTIAL", "SOURCE_ROOTS", "SOURCE_ROOTS_PARTIAL", "PROJECT_ROOT", "ABSOLUTE_PATH", "CLASS_NAME", "SAME_PACKAGE_OTHER_ROOT", "DEEP_PARTIAL", "OTHER_PROJECTS", "CLASSPATH_ARCHIVES", "GLOB"})
+    public String strategy;
+    @Param({"Main-context.xml", "dir-0/file-1.txt", "file-99", "dir-0/*.txt"})
+    public String literal;
+
+    private ResolutionStrategy resolutionStrategy;
+    private ResolutionContext ctx;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticProject project = new SyntheticProject(files);
+        ResourceIndex index = project.awaitIndex();
+        ctx = ResolutionContext.create(project.getDocument(), project, index, ResolverOptions.create(true, true, false, false), 0);
+        resolutionStrategy = ResolutionStrategy.valueOf(strategy);
+    }
+
+    @Benchmark
+    public Collection<FileObject> find() {
+        return resolutionStrategy.find(ctx, literal);
+    }
+}
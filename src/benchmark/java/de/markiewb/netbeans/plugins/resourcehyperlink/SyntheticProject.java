@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.io.IOException;
+import javax.swing.event.ChangeListener;
+import org.netbeans.api.java.project.JavaProjectConstants;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.SourceGroup;
+import org.netbeans.api.project.Sources;
+import org.netbeans.spi.project.support.GenericSources;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * A project on a memory file system with a single resource root containing
+ * the given number of files. The files are spread over folders of
+ * {@link #FILES_PER_FOLDER} files each, named {@code dir-<i>/file-<n>.txt}.
+ * Additionally the root contains {@code com/foo/Main.java} (the document with
+ * the literals) and {@code com/foo/Main-context.xml}.
+ *
+ * @author markiewb
+ */
+final class SyntheticProject implements Project {
+
+    static final int FILES_PER_FOLDER = 100;
+    static final String DOCUMENT = "com/foo/Main.java";
+    static final String CONTEXT = "com/foo/Main-context.xml";
+    private static final long INDEX_TIMEOUT_MS = 600000;
+
+    private final FileObject projectDirectory;
+    private final FileObject root;
+    private final Lookup lookup;
+
+    SyntheticProject(int files) throws IOException {
+        projectDirectory = FileUtil.createMemoryFileSystem().getRoot().createFolder("project");
+        root = FileUtil.createFolder(projectDirectory, "src/main/resources");
+        FileObject folder = null;
+        for (int i = 0; i < files; i++) {
+            if (i % FILES_PER_FOLDER == 0) {
+                folder = root.createFolder("dir-" + i / FILES_PER_FOLDER);
+            }
+            folder.createData("file-" + i, "txt");
+        }
+        FileUtil.createData(root, DOCUMENT);
+        FileUtil.createData(root, CONTEXT);
+        final SourceGroup group = GenericSources.group(this, root, "resources", "Resources", null, null);
+        lookup = Lookups.fixed(new Sources() {
+
+            @Override
+            public SourceGroup[] getSourceGroups(String type) {
+                if (JavaProjectConstants.SOURCES_TYPE_RESOURCES.equals(type)) {
+                    return new SourceGroup[]{group};
+                }
+                return new SourceGroup[0];
+            }
+
+            @Override
+            public void addChangeListener(ChangeListener listener) {
+            }
+
+            @Override
+            public void removeChangeListener(ChangeListener listener) {
+            }
+        });
+    }
+
+    /**
+     * @return the java file within the source root
+     */
+    FileObject getDocument() {
+        return root.getFileObject(DOCUMENT);
+    }
+
+    /**
+     * Waits until the index of the project has been built in the background.
+     *
+     * @return the index
+     * @throws InterruptedException
+     */
+    ResourceIndex awaitIndex() throws InterruptedException {
+        ResourceIndex index = ResourceIndex.getOrCreate(this);
+        if (!index.awaitReady(INDEX_TIMEOUT_MS)) {
+            throw new IllegalStateException("the index has not been built within " + INDEX_TIMEOUT_MS + " ms");
+        }
+        return index;
+    }
+
+    @Override
+    public FileObject getProjectDirectory() {
+        return projectDirectory;
+    }
+
+    @Override
+    public Lookup getLookup() {
+        return lookup;
+    }
+}
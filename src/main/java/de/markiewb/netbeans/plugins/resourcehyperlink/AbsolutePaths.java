@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Resolves absolute paths to files. A literal is only checked, if it looks
+ * like an absolute path of the current OS, the check costs a single stat of
+ * the file. Paths not found are remembered for a short time, so hovering over
+ * the same missing path again does not touch the file system.
+ *
+ * @author markiewb
+ */
+final class AbsolutePaths {
+
+    private static final int MAX_MISSING = 128;
+    private static final long MISSING_TIMEOUT_MS = 10000;
+    /**
+     * missing path -&gt; expiry time
+     */
+    private static final Map<String, Long> MISSING = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_MISSING;
+        }
+    };
+
+    private AbsolutePaths() {
+    }
+
+    /**
+     * @param path
+     * @return the file or {@code null}, if the path is not absolute or does
+     * not denote an existing file
+     */
+    static FileObject find(String path) {
+        if (!looksAbsolute(path)) {
+            return null;
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (MISSING) {
+            Long expiry = MISSING.get(path);
+            if (null != expiry) {
+                if (now < expiry) {
+                    return null;
+                }
+                MISSING.remove(path);
+            }
+        }
+        final File file = new File(path);
+        FileObject fileObject = null;
+        //a single stat, false for missing files and for folders
+        if (file.isAbsolute() && file.isFile()) {
+            fileObject = FileUtil.toFileObject(FileUtil.normalizeFile(file));
+        }
+        if (null == fileObject) {
+            synchronized (MISSING) {
+                MISSING.put(path, now + MISSING_TIMEOUT_MS);
+            }
+        }
+        return fileObject;
+    }
+
+    /**
+     * Cheap check of the first chars, f.e. {@code /foo} or on Windows
+     * {@code C:\foo}, {@code C:/foo} and {@code \\server\share}.
+     */
+    static boolean looksAbsolute(CharSequence path) {
+        if (path.length() < 2) {
+            return false;
+        }
+        final char first = path.charAt(0);
+        if ('/' != File.separatorChar) {
+            if ('\\' == first || '/' == first) {
+                return path.charAt(1) == first;
+            }
+            return path.length() > 2 && Character.isLetter(first) && ':' == path.charAt(1)
+                    && ('\\' == path.charAt(2) || '/' == path.charAt(2));
+        }
+        return '/' == first;
+    }
+}
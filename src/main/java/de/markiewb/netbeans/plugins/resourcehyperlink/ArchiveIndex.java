@@ -0,0 +1,260 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * The hashes of the names of the entries of an archive on the classpath. The
+ * names are read once from the central directory of the archive in the
+ * background and cached per archive path. The archive is read again, if its
+ * timestamp or its size has changed. So resolving a path against the archives
+ * of the compile and execute classpath does not open any archive, until a
+ * match is found.
+ * <p>
+ * A hash may collide, so a contained hash only means, that the archive may
+ * have the entry. The cache is bounded by the total number of entries.
+ * </p>
+ *
+ * @author markiewb
+ */
+final class ArchiveIndex {
+
+    private static final Logger LOG = Logger.getLogger(ArchiveIndex.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(ArchiveIndex.class.getName(), 1);
+    /**
+     * the cached entries of all archives, 4 bytes each
+     */
+    private static final int MAX_ENTRIES = 2000000;
+    /**
+     * the timestamp of an archive is checked at most once within this time
+     */
+    private static final long CHECK_INTERVAL_MS = 5000;
+    private static final Map<File, ArchiveIndex> CACHE = new LinkedHashMap<File, ArchiveIndex>(16, 0.75f, true);
+    /**
+     * the archives, which are about to be read
+     */
+    private static final Set<File> PENDING = new HashSet<File>();
+    private static int cachedEntries;
+
+    /**
+     * Finds the entries with the path in the archives of the compile and
+     * execute classpath of the file. An archive, which has not been read yet,
+     * is asked directly.
+     *
+     * @param fo the file containing the literal
+     * @param path a path relative to the roots of the archives, a leading
+     * slash is ignored
+     * @return the entries found, in the order of the classpath
+     */
+    static Collection<FileObject> find(FileObject fo, String path) {
+        final String entryName = toEntryName(path);
+        if (null == fo || null == entryName) {
+            return Collections.emptyList();
+        }
+        List<FileObject> result = new ArrayList<FileObject>();
+        for (Map.Entry<FileObject, File> archive : getArchives(fo).entrySet()) {
+            ArchiveIndex index = get(archive.getValue());
+            if (null == index || index.contains(entryName)) {
+                //only now the archive is opened by the file system
+                FileObject entry = archive.getKey().getFileObject(entryName);
+                if (null != entry && entry.isData()) {
+                    result.add(entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Never blocks on reading an archive.
+     *
+     * @param fo the file containing the literal
+     * @param path
+     * @return {@code true} if an archive on the classpath of the file may
+     * have an entry with the path or has not been read yet
+     */
+    static boolean contains(FileObject fo, String path) {
+        final String entryName = toEntryName(path);
+        if (null == fo || null == entryName) {
+            return false;
+        }
+        for (File archive : getArchives(fo).values()) {
+            ArchiveIndex index = get(archive);
+            if (null == index || index.contains(entryName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String toEntryName(String path) {
+        String entryName = path.replace('\\', '/');
+        while (entryName.startsWith("/")) {
+            entryName = entryName.substring(1);
+        }
+        return entryName.isEmpty() ? null : entryName;
+    }
+
+    /**
+     * @return archive root -&gt; archive file, folders on the classpath are
+     * skipped
+     */
+    private static Map<FileObject, File> getArchives(FileObject fo) {
+        Map<FileObject, File> archives = new LinkedHashMap<FileObject, File>();
+        for (String type : new String[]{ClassPath.COMPILE, ClassPath.EXECUTE}) {
+            ClassPath classPath = ClassPath.getClassPath(fo, type);
+            if (null == classPath) {
+                continue;
+            }
+            for (FileObject root : classPath.getRoots()) {
+                if (archives.containsKey(root)) {
+                    continue;
+                }
+                FileObject archiveFile = FileUtil.getArchiveFile(root);
+                File file = null == archiveFile ? null : FileUtil.toFile(archiveFile);
+                if (null != file) {
+                    archives.put(root, file);
+                }
+            }
+        }
+        return archives;
+    }
+
+    /**
+     * @return the up to date index or {@code null}, if the archive is read in
+     * the background
+     */
+    private static ArchiveIndex get(final File archive) {
+        final long now = System.currentTimeMillis();
+        ArchiveIndex index;
+        synchronized (CACHE) {
+            index = CACHE.get(archive);
+        }
+        if (null != index && (now < index.checkedAt + CHECK_INTERVAL_MS || index.isUpToDate())) {
+            index.checkedAt = now;
+            return index;
+        }
+        synchronized (CACHE) {
+            if (!PENDING.add(archive)) {
+                return null;
+            }
+        }
+        RP.post(new Runnable() {
+
+            @Override
+            public void run() {
+                ArchiveIndex newIndex = new ArchiveIndex(archive);
+                synchronized (CACHE) {
+                    PENDING.remove(archive);
+                    put(archive, newIndex);
+                }
+            }
+        });
+        return null;
+    }
+
+    /**
+     * Evicts the least recently used archives, until the entries fit.
+     */
+    private static void put(File archive, ArchiveIndex index) {
+        ArchiveIndex old = CACHE.put(archive, index);
+        if (null != old) {
+            cachedEntries -= old.hashes.length;
+        }
+        cachedEntries += index.hashes.length;
+        for (Iterator<ArchiveIndex> it = CACHE.values().iterator(); cachedEntries > MAX_ENTRIES && it.hasNext();) {
+            ArchiveIndex eldest = it.next();
+            if (eldest != index) {
+                cachedEntries -= eldest.hashes.length;
+                it.remove();
+            }
+        }
+    }
+
+    private final File archive;
+    private final long lastModified;
+    private final long length;
+    /**
+     * sorted hashes of the entry names
+     */
+    private final int[] hashes;
+    private volatile long checkedAt;
+
+    private ArchiveIndex(File archive) {
+        this.archive = archive;
+        this.lastModified = archive.lastModified();
+        this.length = archive.length();
+        this.checkedAt = System.currentTimeMillis();
+        this.hashes = read(archive);
+    }
+
+    private boolean isUpToDate() {
+        return lastModified == archive.lastModified() && length == archive.length();
+    }
+
+    private static int[] read(File archive) {
+        long start = System.currentTimeMillis();
+        int[] hashes = new int[0];
+        int count = 0;
+        try {
+            ZipFile zip = new ZipFile(archive);
+            try {
+                hashes = new int[zip.size()];
+                Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+                while (zipEntries.hasMoreElements() && count < hashes.length) {
+                    ZipEntry zipEntry = zipEntries.nextElement();
+                    if (!zipEntry.isDirectory()) {
+                        hashes[count++] = zipEntry.getName().hashCode();
+                    }
+                }
+            } finally {
+                zip.close();
+            }
+        } catch (IOException ex) {
+            //f.e. a missing or broken archive, it stays empty until it changes
+            LOG.log(Level.FINE, archive.getPath(), ex);
+        }
+        hashes = Arrays.copyOf(hashes, count);
+        Arrays.sort(hashes);
+        LOG.fine(String.format("read %d entries of %s in %d ms", count, archive, System.currentTimeMillis() - start));
+        return hashes;
+    }
+
+    private boolean contains(String entryName) {
+        return Arrays.binarySearch(hashes, entryName.hashCode()) >= 0;
+    }
+}
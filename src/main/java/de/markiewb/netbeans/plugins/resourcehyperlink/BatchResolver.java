@@ -0,0 +1,225 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.netbeans.api.editor.EditorRegistry;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Resolves all literals of a document (see {@link LiteralLanguage}) in the
+ * background, when the document gets the focus and after each edit. The
+ * results are kept per document and are keyed by the offsets of the literals,
+ * so the hover over a literal only needs a map lookup.
+ * <p>
+ * All literals of a batch share one {@link ResolutionContext}. After an edit,
+ * the results of the literals, whose text is unchanged, are taken over from
+ * the previous batch.
+ * </p>
+ *
+ * @author markiewb
+ */
+final class BatchResolver {
+
+    private static final Logger LOG = Logger.getLogger(BatchResolver.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(BatchResolver.class.getName(), 1, true);
+    private static final int DELAY_AFTER_FOCUS = 300;
+    private static final int DELAY_AFTER_EDIT = 1000;
+
+    /**
+     * increased, when the options change, to drop all results
+     */
+    private volatile int generation;
+
+    void listenOnEditors() {
+        EditorRegistry.addPropertyChangeListener(new PropertyChangeListener() {
+
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (EditorRegistry.FOCUS_GAINED_PROPERTY.equals(evt.getPropertyName())) {
+                    JTextComponent component = EditorRegistry.focusedComponent();
+                    if (null != component) {
+                        attach(component.getDocument());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the results of all documents.
+     */
+    void invalidate() {
+        generation++;
+    }
+
+    /**
+     * @param doc
+     * @param literal
+     * @param index the index of the owning project, may be {@code null}
+     * @return the result resolved in the background or {@code null} if there
+     * is no up to date result
+     */
+    ResultTO get(Document doc, StringLiteral literal, ResourceIndex index) {
+        Object property = doc.getProperty(this);
+        if (!(property instanceof DocumentState)) {
+            return null;
+        }
+        final Results results = ((DocumentState) property).results;
+        if (null == results || !results.isUpToDate(doc, index)) {
+            return null;
+        }
+        return results.bySpan.get(span(literal));
+    }
+
+    private void attach(Document doc) {
+        if (null == doc || null == LiteralLanguage.of(doc)) {
+            return;
+        }
+        DocumentState state;
+        synchronized (this) {
+            Object property = doc.getProperty(this);
+            if (property instanceof DocumentState) {
+                state = (DocumentState) property;
+            } else {
+                state = new DocumentState(doc);
+                doc.putProperty(this, state);
+                doc.addDocumentListener(state);
+            }
+        }
+        final Results results = state.results;
+        if (null == results || !results.isUpToDate(doc, results.index)) {
+            state.task.schedule(DELAY_AFTER_FOCUS);
+        }
+    }
+
+    private static Long span(StringLiteral literal) {
+        return ((long) literal.startOffset << 32) | literal.endOffset;
+    }
+
+    /**
+     * The results of a batch.
+     */
+    private final class Results {
+
+        private final long modificationStamp;
+        private final ResourceIndex index;
+        private final long indexModificationCount;
+        private final int generation;
+        private final Map<Long, ResultTO> bySpan;
+        private final Map<String, ResultTO> byText;
+
+        Results(long modificationStamp, ResourceIndex index, long indexModificationCount, int generation, Map<Long, ResultTO> bySpan, Map<String, ResultTO> byText) {
+            this.modificationStamp = modificationStamp;
+            this.index = index;
+            this.indexModificationCount = indexModificationCount;
+            this.generation = generation;
+            this.bySpan = bySpan;
+            this.byText = byText;
+        }
+
+        boolean isUpToDate(Document doc, ResourceIndex currentIndex) {
+            return modificationStamp == ResultCache.getModificationStamp(doc) && isReusable(currentIndex);
+        }
+
+        /**
+         * @return {@code true} if the results of the literals are still valid
+         * for the same text
+         */
+        boolean isReusable(ResourceIndex currentIndex) {
+            return index == currentIndex
+                    && (null == index || indexModificationCount == index.getModificationCount())
+                    && generation == BatchResolver.this.generation;
+        }
+    }
+
+    private final class DocumentState implements DocumentListener, Runnable {
+
+        private final Document doc;
+        private final RequestProcessor.Task task;
+        private volatile Results results;
+
+        DocumentState(Document doc) {
+            this.doc = doc;
+            this.task = RP.create(this);
+            this.task.setPriority(Thread.MIN_PRIORITY);
+        }
+
+        @Override
+        public void run() {
+            final long start = System.currentTimeMillis();
+            final long modificationStamp = ResultCache.getModificationStamp(doc);
+            final int currentGeneration = generation;
+            final LiteralLanguage language = LiteralLanguage.of(doc);
+            if (null == language) {
+                return;
+            }
+            final List<StringLiteral> literals = language.findAll(doc);
+            //no time budget, nobody is waiting for the batch, and keep the pools free for the lookups of the editor
+            final ResolutionContext ctx = ResourceHyperlinkProvider.createContext(doc, 0).inCallingThread();
+            final long indexModificationCount = null == ctx.index ? 0 : ctx.index.getModificationCount();
+
+            final Results previous = results;
+            final boolean reuse = null != previous && previous.isReusable(ctx.index);
+            Map<Long, ResultTO> bySpan = new HashMap<Long, ResultTO>();
+            Map<String, ResultTO> byText = new HashMap<String, ResultTO>();
+            int resolved = 0;
+            for (StringLiteral literal : literals) {
+                if (ResourceResolver.isCancelled() || modificationStamp != ResultCache.getModificationStamp(doc)) {
+                    //superseded by an edit, which schedules the next batch
+                    return;
+                }
+                ResultTO known = byText.get(literal.text);
+                if (null == known && reuse) {
+                    known = previous.byText.get(literal.text);
+                }
+                if (null == known) {
+                    known = ResourceResolver.resolve(ctx, literal);
+                    resolved++;
+                }
+                byText.put(literal.text, known);
+                bySpan.put(span(literal), ResultTO.create(literal, known.foundFiles, known.incomplete, known.totalCount));
+            }
+            if (modificationStamp == ResultCache.getModificationStamp(doc)) {
+                results = new Results(modificationStamp, ctx.index, indexModificationCount, currentGeneration, bySpan, byText);
+                LOG.fine(String.format("resolved %d of %d literals in %d ms", resolved, literals.size(), System.currentTimeMillis() - start));
+            }
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            task.schedule(DELAY_AFTER_EDIT);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            task.schedule(DELAY_AFTER_EDIT);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+        }
+    }
+}
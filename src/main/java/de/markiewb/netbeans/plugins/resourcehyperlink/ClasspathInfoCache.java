@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.source.ClasspathInfo;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Caches the {@link ClasspathInfo} per source root. An entry is dropped, when
+ * the entries or roots of its boot, compile or source path change.
+ *
+ * @author markiewb
+ */
+final class ClasspathInfoCache {
+
+    private static final int MAX_ENTRIES = 64;
+    private static final Map<FileObject, Entry> CACHE = new LinkedHashMap<FileObject, Entry>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FileObject, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                eldest.getValue().removeListeners();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private ClasspathInfoCache() {
+    }
+
+    /**
+     * @param fo a file within a source root
+     * @return the classpath info of the source root owning the file or
+     * {@code null}, if the file has no complete classpath
+     */
+    static ClasspathInfo get(FileObject fo) {
+        ClassPath sourcePath = ClassPath.getClassPath(fo, ClassPath.SOURCE);
+        if (null == sourcePath) {
+            return null;
+        }
+        FileObject root = sourcePath.findOwnerRoot(fo);
+        if (null == root) {
+            return null;
+        }
+        synchronized (CACHE) {
+            Entry entry = CACHE.get(root);
+            if (null != entry) {
+                return entry.info;
+            }
+        }
+
+        ClassPath bootCp = ClassPath.getClassPath(fo, ClassPath.BOOT);
+        ClassPath compileCp = ClassPath.getClassPath(fo, ClassPath.COMPILE);
+        if (null == bootCp || null == compileCp) {
+            return null;
+        }
+        Entry entry = new Entry(root, ClasspathInfo.create(bootCp, compileCp, sourcePath), bootCp, compileCp, sourcePath);
+        synchronized (CACHE) {
+            Entry old = CACHE.put(root, entry);
+            if (null != old) {
+                old.removeListeners();
+            }
+        }
+        return entry.info;
+    }
+
+    private static void invalidate(Entry entry) {
+        synchronized (CACHE) {
+            if (CACHE.get(entry.root) == entry) {
+                CACHE.remove(entry.root);
+            }
+        }
+        entry.removeListeners();
+    }
+
+    private static final class Entry implements PropertyChangeListener {
+
+        private final FileObject root;
+        private final ClasspathInfo info;
+        private final ClassPath[] classPaths;
+
+        Entry(FileObject root, ClasspathInfo info, ClassPath... classPaths) {
+            this.root = root;
+            this.info = info;
+            this.classPaths = classPaths;
+            for (ClassPath classPath : classPaths) {
+                classPath.addPropertyChangeListener(this);
+            }
+        }
+
+        void removeListeners() {
+            for (ClassPath classPath : classPaths) {
+                classPath.removePropertyChangeListener(this);
+            }
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            if (ClassPath.PROP_ENTRIES.equals(evt.getPropertyName())
+                    || ClassPath.PROP_ROOTS.equals(evt.getPropertyName())) {
+                invalidate(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.logging.Logger;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * Shows the {@link ResolverStatistics} and writes them to the log.
+ *
+ * @author markiewb
+ */
+@ActionID(category = "Tools", id = "de.markiewb.netbeans.plugins.resourcehyperlink.DumpStatisticsAction")
+@ActionRegistration(displayName = "#CTL_DumpStatisticsAction")
+@ActionReference(path = "Menu/Tools", position = 1850)
+@Messages("CTL_DumpStatisticsAction=Dump hyperlink resolver statistics")
+public final class DumpStatisticsAction implements ActionListener {
+
+    private static final Logger LOG = Logger.getLogger(DumpStatisticsAction.class.getName());
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        final String dump = ResolverStatistics.getDefault().dump();
+        LOG.fine(dump);
+        ReportDialog.show(dump);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * An Ant style pattern like {@code db/migration/*.sql},
+ * {@code templates/**}{@code /*.ftl} or {@code classpath*:META-INF/**}{@code /*.xml}
+ * compiled to a regular expression over the paths relative to a root.
+ * <ul>
+ * <li>{@code *} matches any chars except the separator</li>
+ * <li>{@code ?} matches a single char except the separator</li>
+ * <li>{@code **} matches any number of folders</li>
+ * </ul>
+ * A leading {@code classpath:} or {@code classpath*:} and leading slashes are
+ * ignored. The compiled patterns are cached, so a literal is compiled only
+ * once.
+ *
+ * @author markiewb
+ */
+final class GlobPattern {
+
+    private static final int MAX_CACHED = 64;
+    private static final String SCHEME_CLASSPATH_ALL = "classpath*:";
+    private static final Map<String, GlobPattern> CACHE = new LinkedHashMap<String, GlobPattern>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, GlobPattern> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    /**
+     * @param literal
+     * @return the compiled pattern
+     */
+    static GlobPattern compile(String literal) {
+        synchronized (CACHE) {
+            GlobPattern glob = CACHE.get(literal);
+            if (null == glob) {
+                glob = new GlobPattern(literal);
+                CACHE.put(literal, glob);
+            }
+            return glob;
+        }
+    }
+
+    private final Pattern pattern;
+    private final String nameHint;
+
+    private GlobPattern(String literal) {
+        String glob = literal;
+        if (LiteralKind.startsWithIgnoreCase(glob, SCHEME_CLASSPATH_ALL)) {
+            glob = glob.substring(SCHEME_CLASSPATH_ALL.length());
+        } else if (LiteralKind.startsWithIgnoreCase(glob, LiteralKind.SCHEME_CLASSPATH)) {
+            glob = glob.substring(LiteralKind.SCHEME_CLASSPATH.length());
+        }
+        glob = glob.replace('\\', '/');
+        while (glob.startsWith("/")) {
+            glob = glob.substring(1);
+        }
+        this.pattern = Pattern.compile(toRegex(glob));
+        this.nameHint = getLongestLiteral(glob.substring(glob.lastIndexOf('/') + 1));
+    }
+
+    /**
+     * @param relativePath a path relative to a root, separated by slashes
+     * @return
+     */
+    boolean matches(String relativePath) {
+        return pattern.matcher(relativePath).matches();
+    }
+
+    /**
+     * @return the longest part of the name pattern without wildcards in
+     * lowercase, each matching name contains it; {@code null} if the name
+     * pattern consists of wildcards only
+     */
+    String getNameHint() {
+        return nameHint;
+    }
+
+    private static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 16);
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if ('*' != c && '?' != c) {
+                continue;
+            }
+            if (literalStart < i) {
+                regex.append(Pattern.quote(glob.substring(literalStart, i)));
+            }
+            if ('?' == c) {
+                regex.append("[^/]");
+            } else if (i + 1 < glob.length() && '*' == glob.charAt(i + 1)) {
+                if (i + 2 < glob.length() && '/' == glob.charAt(i + 2)) {
+                    //"**/" matches no folder too
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    regex.append(".*");
+                    i++;
+                }
+            } else {
+                regex.append("[^/]*");
+            }
+            literalStart = i + 1;
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return regex.toString();
+    }
+
+    private static String getLongestLiteral(String namePattern) {
+        String longest = null;
+        for (String part : namePattern.split("[*?]+")) {
+            if (!part.isEmpty() && (null == longest || part.length() > longest.length())) {
+                longest = part;
+            }
+        }
+        return null == longest ? null : longest.toLowerCase();
+    }
+}
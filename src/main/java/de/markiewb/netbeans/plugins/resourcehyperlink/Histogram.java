@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts values (f.e. nanoseconds) in buckets of powers of two, so the
+ * percentiles are known up to a factor of two. Recording a value does not
+ * allocate and does not lock, so it can stay enabled in production.
+ *
+ * @author markiewb
+ */
+final class Histogram {
+
+    private static final int BUCKETS = 48;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        //bucket b holds the values of [2^(b-1), 2^b)
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    long getCount() {
+        return count.get();
+    }
+
+    long getMean() {
+        final long n = count.get();
+        return 0 == n ? 0 : sum.get() / n;
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile f.e. 0.99
+     * @return the upper bound of the bucket containing the percentile
+     */
+    long getPercentile(double percentile) {
+        final long n = count.get();
+        if (0 == n) {
+            return 0;
+        }
+        final long threshold = (long) Math.ceil(n * percentile);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets.get(b);
+            if (seen >= threshold) {
+                return Math.min((1L << b) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets.set(b, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @param divisor f.e. 1000 to print nanoseconds as microseconds
+     * @param unit
+     * @return f.e. "count=12 mean=40us p50<=63us p99<=255us max=210us"
+     */
+    String format(long divisor, String unit) {
+        return String.format("count=%d mean=%d%s p50<=%d%s p99<=%d%s max=%d%s",
+                getCount(),
+                getMean() / divisor, unit,
+                getPercentile(0.5) / divisor, unit,
+                getPercentile(0.99) / divisor, unit,
+                getMax() / divisor, unit);
+    }
+}
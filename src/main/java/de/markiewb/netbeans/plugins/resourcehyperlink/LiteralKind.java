@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.io.File;
+
+/**
+ * The shape of a literal. It is determined once per literal, so that only the
+ * {@link ResolutionStrategy strategies} applicable to the shape are run.
+ *
+ * @author markiewb
+ */
+enum LiteralKind {
+
+    /**
+     * f.e. {@code com/foo/Bar.properties} or {@code ./foo.txt}
+     */
+    RELATIVE_PATH,
+    /**
+     * f.e. {@code /home/foo/bar.txt} or {@code C:\foo\bar.txt}
+     */
+    ABSOLUTE_PATH,
+    /**
+     * f.e. {@code com.foo.Bar} or {@code com.foo.Bar$Inner}
+     */
+    CLASS_NAME,
+    /**
+     * f.e. {@code bar.txt} or {@code MyTest-context.xml}
+     */
+    FILE_NAME,
+    /**
+     * f.e. {@code classpath:com/foo/bar.xml} or {@code file:/home/foo/bar.txt}
+     */
+    URI,
+    /**
+     * f.e. {@code db/migration/*.sql} or {@code classpath*:META-INF/**}{@code /*.xml}
+     */
+    GLOB,
+    /**
+     * f.e. {@code <html>} or a text containing a line break
+     */
+    NOT_A_RESOURCE;
+
+    static final String SCHEME_CLASSPATH = "classpath:";
+    static final String SCHEME_FILE = "file:";
+
+    /**
+     * Classifies the literal by looking at its chars, nothing is allocated.
+     *
+     * @param literal
+     * @return
+     */
+    static LiteralKind of(CharSequence literal) {
+        final int length = literal.length();
+        if (0 == length) {
+            return NOT_A_RESOURCE;
+        }
+        final boolean windows = '\\' == File.separatorChar;
+        boolean separator = false;
+        boolean javaName = true;
+        boolean segmentStart = true;
+        boolean classSegment = false;
+        boolean packageSegment = false;
+        boolean wildcard = false;
+        boolean whitespace = false;
+        boolean letterOrDigit = false;
+        for (int i = 0; i < length; i++) {
+            final char c = literal.charAt(i);
+            if (Character.isISOControl(c) || '<' == c || '>' == c || '|' == c || '"' == c) {
+                //not allowed in file names
+                return NOT_A_RESOURCE;
+            }
+            if ('*' == c || '?' == c) {
+                wildcard = true;
+            } else if (Character.isWhitespace(c)) {
+                whitespace = true;
+            } else if (Character.isLetterOrDigit(c)) {
+                letterOrDigit = true;
+            }
+            if ('/' == c || (windows && '\\' == c)) {
+                separator = true;
+            }
+            //same as ResourceResolver.isQualifiedJavaName(), but remembers the segments
+            if (!javaName) {
+                continue;
+            }
+            if (segmentStart) {
+                javaName = Character.isJavaIdentifierStart(c);
+                classSegment = Character.isUpperCase(c);
+                packageSegment |= 0 == i && Character.isLowerCase(c);
+                segmentStart = false;
+            } else if ('.' == c) {
+                segmentStart = true;
+            } else if ('$' == c) {
+                classSegment = true;
+            } else {
+                javaName = Character.isJavaIdentifierPart(c);
+            }
+        }
+        final char last = literal.charAt(length - 1);
+        if ('/' == last || (windows && '\\' == last)) {
+            //a folder
+            return NOT_A_RESOURCE;
+        }
+        //"*" or "Are you sure?" are no patterns
+        if (wildcard && !whitespace && letterOrDigit) {
+            return GLOB;
+        }
+        if (startsWithIgnoreCase(literal, SCHEME_CLASSPATH) || startsWithIgnoreCase(literal, SCHEME_FILE)) {
+            return URI;
+        }
+        if (AbsolutePaths.looksAbsolute(literal)) {
+            return ABSOLUTE_PATH;
+        }
+        if (separator) {
+            return RELATIVE_PATH;
+        }
+        //a class name starts with a package and its last segment is capitalized,
+        //f.e. "com.foo.Bar" but not "bar.txt" or "MANIFEST.MF"
+        if (javaName && !segmentStart && classSegment && packageSegment && indexOf(literal, '.') > 0) {
+            return CLASS_NAME;
+        }
+        return FILE_NAME;
+    }
+
+    static boolean startsWithIgnoreCase(CharSequence text, String prefix) {
+        if (text.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(text.charAt(i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, char c) {
+        for (int i = 0; i < text.length(); i++) {
+            if (c == text.charAt(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
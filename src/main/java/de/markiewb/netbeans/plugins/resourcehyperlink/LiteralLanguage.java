@@ -0,0 +1,264 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.api.xml.lexer.XMLTokenId;
+import org.netbeans.editor.BaseDocument;
+import org.netbeans.modules.editor.NbEditorUtilities;
+
+/**
+ * The languages, whose documents contain resource literals, and how the
+ * literals are extracted from their documents. All languages share the same
+ * resolution, caches and indexes.
+ *
+ * @author markiewb
+ */
+enum LiteralLanguage {
+
+    /**
+     * the string literals
+     */
+    JAVA {
+        @Override
+        StringLiteral find(BaseDocument doc, int offset) throws BadLocationException {
+            return StringLiteral.find(doc, offset);
+        }
+
+        @Override
+        List<StringLiteral> findAll(Document doc) {
+            return StringLiteral.findAll(doc);
+        }
+    },
+    /**
+     * the attribute values and the texts of elements without whitespace, f.e.
+     * {@code <import resource="classpath:foo.xml"/>} or
+     * {@code <mapping-file>META-INF/orm.xml</mapping-file>}
+     */
+    XML {
+        @Override
+        StringLiteral find(final BaseDocument doc, final int offset) throws BadLocationException {
+            final StringLiteral[] result = new StringLiteral[1];
+            doc.render(new Runnable() {
+
+                @Override
+                public void run() {
+                    TokenSequence<XMLTokenId> ts = getXmlTokenSequence(doc);
+                    if (null == ts) {
+                        return;
+                    }
+                    ts.move(offset);
+                    if (ts.moveNext()) {
+                        result[0] = toLiteral(ts.token(), ts.offset());
+                    }
+                }
+            });
+            return result[0];
+        }
+
+        @Override
+        List<StringLiteral> findAll(final Document doc) {
+            final List<StringLiteral> result = new ArrayList<StringLiteral>();
+            doc.render(new Runnable() {
+
+                @Override
+                public void run() {
+                    TokenSequence<XMLTokenId> ts = getXmlTokenSequence(doc);
+                    if (null == ts) {
+                        return;
+                    }
+                    ts.moveStart();
+                    while (ts.moveNext()) {
+                        StringLiteral literal = toLiteral(ts.token(), ts.offset());
+                        if (null != literal) {
+                            result.add(literal);
+                        }
+                    }
+                }
+            });
+            return result;
+        }
+
+        private TokenSequence<XMLTokenId> getXmlTokenSequence(Document doc) {
+            TokenHierarchy<Document> hi = TokenHierarchy.get(doc);
+            if (null == hi || !hi.isActive()) {
+                return null;
+            }
+            return hi.tokenSequence(XMLTokenId.language());
+        }
+
+        private StringLiteral toLiteral(Token<XMLTokenId> token, int tokenOffset) {
+            if (null == token) {
+                return null;
+            }
+            final CharSequence text = token.text();
+            if (token.id() == XMLTokenId.VALUE) {
+                //with the quotes
+                if (text.length() <= 2) {
+                    return null;
+                }
+                final char quote = text.charAt(0);
+                if ((quote != '"' && quote != '\'') || text.charAt(text.length() - 1) != quote) {
+                    return null;
+                }
+                return new StringLiteral(tokenOffset + 1, tokenOffset + text.length() - 1, text.subSequence(1, text.length() - 1).toString());
+            }
+            if (token.id() == XMLTokenId.TEXT) {
+                return trimmedWord(text, 0, text.length(), tokenOffset);
+            }
+            return null;
+        }
+    },
+    /**
+     * the values of the properties, f.e. {@code config=META-INF/foo.xml}
+     */
+    PROPERTIES {
+        @Override
+        StringLiteral find(BaseDocument doc, int offset) throws BadLocationException {
+            StringLiteral literal;
+            doc.readLock();
+            try {
+                literal = findInLine(doc, doc.getParagraphElement(offset));
+            } finally {
+                doc.readUnlock();
+            }
+            if (null == literal || offset < literal.startOffset || literal.endOffset < offset) {
+                return null;
+            }
+            return literal;
+        }
+
+        @Override
+        List<StringLiteral> findAll(final Document doc) {
+            final List<StringLiteral> result = new ArrayList<StringLiteral>();
+            doc.render(new Runnable() {
+
+                @Override
+                public void run() {
+                    final Element root = doc.getDefaultRootElement();
+                    for (int i = 0; i < root.getElementCount(); i++) {
+                        try {
+                            StringLiteral literal = findInLine(doc, root.getElement(i));
+                            if (null != literal) {
+                                result.add(literal);
+                            }
+                        } catch (BadLocationException ex) {
+                            //cannot happen under the read lock
+                            break;
+                        }
+                    }
+                }
+            });
+            return result;
+        }
+
+        private StringLiteral findInLine(Document doc, Element line) throws BadLocationException {
+            final int lineStart = line.getStartOffset();
+            final String text = doc.getText(lineStart, Math.min(line.getEndOffset(), doc.getLength()) - lineStart);
+            int i = 0;
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == text.length() || text.charAt(i) == '#' || text.charAt(i) == '!') {
+                return null;
+            }
+            //skip the key, a separator may be escaped within the key
+            while (i < text.length() && "=: \t\f".indexOf(text.charAt(i)) < 0) {
+                i += text.charAt(i) == '\\' ? 2 : 1;
+            }
+            while (i < text.length() && " \t\f".indexOf(text.charAt(i)) >= 0) {
+                i++;
+            }
+            if (i < text.length() && (text.charAt(i) == '=' || text.charAt(i) == ':')) {
+                i++;
+            }
+            return trimmedWord(text, Math.min(i, text.length()), text.length(), lineStart);
+        }
+    };
+
+    private static final String JAVA_MIME_TYPE = "text/x-java";
+    private static final String PROPERTIES_MIME_TYPE = "text/x-properties";
+    private static final String XML_MIME_TYPE = "text/xml";
+    private static final String XML_MIME_TYPE_SUFFIX = "+xml";
+
+    /**
+     * @param doc
+     * @return the language of the document or {@code null} if it is not
+     * supported
+     */
+    static LiteralLanguage of(Document doc) {
+        final String mimeType = null == doc ? null : NbEditorUtilities.getMimeType(doc);
+        if (null == mimeType) {
+            return null;
+        }
+        if (JAVA_MIME_TYPE.equals(mimeType)) {
+            return JAVA;
+        }
+        if (PROPERTIES_MIME_TYPE.equals(mimeType)) {
+            return PROPERTIES;
+        }
+        if (XML_MIME_TYPE.equals(mimeType) || mimeType.endsWith(XML_MIME_TYPE_SUFFIX)) {
+            return XML;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the literal at the offset. Only the literal around the offset is
+     * looked at.
+     *
+     * @param doc
+     * @param offset
+     * @return the literal or {@code null} if there is none at the offset
+     * @throws BadLocationException
+     */
+    abstract StringLiteral find(BaseDocument doc, int offset) throws BadLocationException;
+
+    /**
+     * @param doc
+     * @return all literals in the order of the document
+     */
+    abstract List<StringLiteral> findAll(Document doc);
+
+    /**
+     * @return the text between start and end without the surrounding
+     * whitespace, {@code null} if it is empty or contains whitespace
+     */
+    private static StringLiteral trimmedWord(CharSequence text, int start, int end, int offset) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return null;
+            }
+        }
+        return new StringLiteral(offset + start, offset + end, text.subSequence(start, end).toString());
+    }
+}
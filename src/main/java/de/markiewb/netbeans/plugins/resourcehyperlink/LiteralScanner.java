@@ -0,0 +1,246 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.project.Project;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Finds the string literals of all java files of a project, which look like
+ * resource paths, but do not resolve to a file (unresolved) or resolve to
+ * several files (ambiguous). The files are lexed and resolved in parallel.
+ * All files share the index of the project and the cached classpaths, the
+ * literals are resolved like a hyperlink with exact matching only. The
+ * strategies run in the threads of the scanner, so a scan does not delay the
+ * hyperlinks in the editor.
+ * <p>
+ * Usage: {@code LiteralScanner.scan(project).format()}
+ * </p>
+ *
+ * @author markiewb
+ */
+final class LiteralScanner {
+
+    private static final Logger LOG = Logger.getLogger(LiteralScanner.class.getName());
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final RequestProcessor RP = new RequestProcessor(LiteralScanner.class.getName(), THREADS, true);
+    private static final int FILES_PER_TASK = 64;
+    private static final long INDEX_TIMEOUT_MS = 60000;
+    private static final String JAVA_EXTENSION = "java";
+
+    private LiteralScanner() {
+    }
+
+    enum Problem {
+
+        UNRESOLVED, AMBIGUOUS
+    }
+
+    /**
+     * Scans all java files below the source roots of the project. Blocks
+     * until the scan has finished.
+     *
+     * @param project
+     * @return
+     * @throws InterruptedException if the scan has been cancelled
+     */
+    static Report scan(final Project project) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        final List<FileObject> files = new ArrayList<FileObject>(getJavaFiles(project));
+        final ResourceIndex index = ResourceIndex.get(project);
+        if (null != index) {
+            index.awaitReady(INDEX_TIMEOUT_MS);
+        }
+
+        List<Future<List<Finding>>> futures = new ArrayList<Future<List<Finding>>>();
+        for (int from = 0; from < files.size(); from += FILES_PER_TASK) {
+            final List<FileObject> chunk = files.subList(from, Math.min(files.size(), from + FILES_PER_TASK));
+            futures.add(RP.submit(new Callable<List<Finding>>() {
+
+                @Override
+                public List<Finding> call() throws Exception {
+                    List<Finding> findings = new ArrayList<Finding>();
+                    for (FileObject file : chunk) {
+                        if (ResourceResolver.isCancelled()) {
+                            break;
+                        }
+                        scanFile(project, file, findings);
+                    }
+                    return findings;
+                }
+            }));
+        }
+        List<Finding> findings = new ArrayList<Finding>();
+        try {
+            for (Future<List<Finding>> future : futures) {
+                try {
+                    findings.addAll(future.get());
+                } catch (ExecutionException ex) {
+                    Exceptions.printStackTrace(ex.getCause());
+                }
+            }
+        } finally {
+            for (Future<List<Finding>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        Collections.sort(findings, new Comparator<Finding>() {
+
+            @Override
+            public int compare(Finding o1, Finding o2) {
+                int result = o1.file.getPath().compareTo(o2.file.getPath());
+                return 0 != result ? result : o1.line - o2.line;
+            }
+        });
+        return new Report(findings, files.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @param literal
+     * @return {@code true} if the literal looks like a path to a file, f.e.
+     * {@code com/foo/bar.xml} or {@code classpath:foo.xml}, but not a folder,
+     * an URL or a MIME type
+     */
+    static boolean isCandidate(String literal) {
+        final LiteralKind kind = LiteralKind.of(literal);
+        if (LiteralKind.RELATIVE_PATH != kind && LiteralKind.URI != kind && LiteralKind.GLOB != kind) {
+            return false;
+        }
+        if (literal.contains("://")) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (Character.isWhitespace(literal.charAt(i))) {
+                return false;
+            }
+        }
+        //the name has an extension
+        final String name = literal.substring(literal.lastIndexOf('/') + 1);
+        return name.lastIndexOf('.') > 0;
+    }
+
+    private static Set<FileObject> getJavaFiles(Project project) {
+        //nested roots would report the same file twice
+        Set<FileObject> files = new LinkedHashSet<FileObject>();
+        for (FileObject root : SourceRoots.get(project).getRoots()) {
+            Enumeration<? extends FileObject> children = root.getChildren(true);
+            while (children.hasMoreElements()) {
+                FileObject child = children.nextElement();
+                if (child.isData() && JAVA_EXTENSION.equals(child.getExt())) {
+                    files.add(child);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static void scanFile(Project project, FileObject file, List<Finding> findings) {
+        final String text;
+        try {
+            text = file.asText();
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, file.getPath(), ex);
+            return;
+        }
+        //no time budget and exact matches only, so the result does not depend on the options;
+        //the strategies run in the threads of the scanner, not in the pools of the editor
+        final ResolutionContext ctx = ResolutionContext.create(file, project, ResolverOptions.create(false, false, false, false), 0).inCallingThread();
+        int line = 1;
+        int lineCountedTo = 0;
+        for (StringLiteral literal : StringLiteral.findAll(text)) {
+            if (!isCandidate(literal.text)) {
+                continue;
+            }
+            for (; lineCountedTo < literal.startOffset; lineCountedTo++) {
+                if ('\n' == text.charAt(lineCountedTo)) {
+                    line++;
+                }
+            }
+            final ResultTO result = ResourceResolver.resolve(ctx, literal);
+            if (!result.isValid()) {
+                findings.add(new Finding(Problem.UNRESOLVED, file, line, literal.text, 0));
+            } else if (result.totalCount > 1 && LiteralKind.GLOB != LiteralKind.of(literal.text)) {
+                findings.add(new Finding(Problem.AMBIGUOUS, file, line, literal.text, result.totalCount));
+            }
+        }
+    }
+
+    static final class Finding {
+
+        final Problem problem;
+        final FileObject file;
+        /**
+         * 1-based
+         */
+        final int line;
+        final String literal;
+        /**
+         * the number of matches
+         */
+        final int matches;
+
+        Finding(Problem problem, FileObject file, int line, String literal, int matches) {
+            this.problem = problem;
+            this.file = file;
+            this.line = line;
+            this.literal = literal;
+            this.matches = matches;
+        }
+
+        @Override
+        public String toString() {
+            final String location = String.format("%s:%d: \"%s\"", file.getPath(), line, literal);
+            return Problem.AMBIGUOUS == problem ? String.format("%s %s (%d matches)", location, problem, matches) : location + " " + problem;
+        }
+    }
+
+    static final class Report {
+
+        final List<Finding> findings;
+        final int scannedFiles;
+        final long millis;
+
+        Report(List<Finding> findings, int scannedFiles, long millis) {
+            this.findings = Collections.unmodifiableList(findings);
+            this.scannedFiles = scannedFiles;
+            this.millis = millis;
+        }
+
+        String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d problems in %d java files (%d ms)%n", findings.size(), scannedFiles, millis));
+            for (Finding finding : findings) {
+                sb.append(finding).append(String.format("%n"));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,526 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.awt.BorderLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import javax.swing.AbstractListModel;
+import javax.swing.BorderFactory;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.JTextComponent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Non-modal popup below the hyperlink, which lets the user choose one of
+ * multiple matches. The matches are added while they are found and can be
+ * filtered by typing. While the popup is showing, new matches are appended
+ * below, so the rows the user looks at do not move. The matches are sorted by
+ * relevance, before the popup is shown and when the filter changes.
+ * <p>
+ * The popup is shown after a short delay only. If the resolution finishes
+ * before with a single match, that file is opened without showing the popup.
+ * All methods have to be called in the EDT, except the {@code toItems}
+ * methods.
+ * </p>
+ *
+ * @author markiewb
+ */
+final class MatchChooser {
+
+    private static final int SHOW_DELAY = 250;
+    private static final int VISIBLE_ROWS = 15;
+
+    private final JTextComponent component;
+    private final int position;
+    private final FileObject projectDirectory;
+    private final ItemModel model = new ItemModel();
+    private final JTextField filter = new JTextField();
+    private final JList<Item> list = new JList<Item>(model);
+    private final JLabel status = new JLabel("Searching...");
+    private final Timer showTimer;
+    private JDialog dialog;
+    private RequestProcessor.Task task;
+    private boolean finished;
+    private int totalCount;
+    private boolean closed;
+
+    /**
+     * @param component the editor, may be {@code null}
+     * @param position the offset to show the popup at
+     * @param projectDirectory the paths are shown relative to it, may be
+     * {@code null}
+     */
+    MatchChooser(JTextComponent component, int position, FileObject projectDirectory) {
+        this.component = component;
+        this.position = position;
+        this.projectDirectory = projectDirectory;
+        showTimer = new Timer(SHOW_DELAY, new ActionListener() {
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                show();
+            }
+        });
+        showTimer.setRepeats(false);
+    }
+
+    /**
+     * @param task the resolution, it is cancelled when the popup is closed
+     */
+    void setTask(RequestProcessor.Task task) {
+        this.task = task;
+    }
+
+    /**
+     * Shows the popup after a short delay, unless the resolution has finished
+     * meanwhile.
+     */
+    void showLater() {
+        showTimer.start();
+    }
+
+    /**
+     * Converts the files of a known result, can be called outside of the EDT.
+     *
+     * @param files the most relevant first
+     * @return
+     */
+    List<Item> toItems(Collection<FileObject> files) {
+        List<Item> items = new ArrayList<Item>(files.size());
+        long key = 0;
+        for (FileObject fileObject : files) {
+            items.add(new Item(fileObject, getDisplayPath(fileObject), key++));
+        }
+        return items;
+    }
+
+    /**
+     * Converts the hits of a running resolution, can be called outside of the
+     * EDT.
+     *
+     * @param hits
+     * @return
+     */
+    List<Item> toItems(List<RankedMatches.Hit> hits) {
+        List<Item> items = new ArrayList<Item>(hits.size());
+        for (RankedMatches.Hit hit : hits) {
+            items.add(new Item(hit.file, getDisplayPath(hit.file), hit.key));
+        }
+        return items;
+    }
+
+    private String getDisplayPath(FileObject fileObject) {
+        String path = null == projectDirectory ? null : FileUtil.getRelativePath(projectDirectory, fileObject);
+        return null == path ? fileObject.getPath() : path;
+    }
+
+    void add(List<Item> items) {
+        if (closed) {
+            return;
+        }
+        final Item selected = list.getSelectedValue();
+        //nothing is shown yet, so the order may still change
+        model.add(items, null == dialog);
+        final int index = null == selected ? -1 : model.indexOf(selected);
+        if (-1 != index) {
+            list.setSelectedIndex(index);
+        } else if (model.getSize() > 0) {
+            list.setSelectedIndex(0);
+        }
+        updateStatus();
+    }
+
+    /**
+     * Removes the files, which have been dropped from the most relevant
+     * matches.
+     *
+     * @param files
+     */
+    void remove(Collection<FileObject> files) {
+        if (closed) {
+            return;
+        }
+        final Item selected = list.getSelectedValue();
+        model.remove(files);
+        final int index = null == selected ? -1 : model.indexOf(selected);
+        if (-1 != index) {
+            list.setSelectedIndex(index);
+        } else if (model.getSize() > 0) {
+            list.setSelectedIndex(0);
+        }
+        updateStatus();
+    }
+
+    /**
+     * The resolution has finished. A single match is opened directly, if the
+     * popup is not showing yet.
+     *
+     * @param totalCount the number of all matches, only the most relevant
+     * have been added
+     */
+    void finish(int totalCount) {
+        if (closed) {
+            return;
+        }
+        finished = true;
+        this.totalCount = totalCount;
+        if (null == dialog) {
+            if (model.all.size() <= 1) {
+                FileObject single = model.all.isEmpty() ? null : model.all.get(0).file;
+                close();
+                if (null != single) {
+                    ResourceHyperlinkProvider.openInEditor(single);
+                }
+                return;
+            }
+            show();
+        }
+        updateStatus();
+    }
+
+    private void updateStatus() {
+        final int shown = model.all.size();
+        final int visible = model.getSize();
+        String text = visible == shown ? String.format("%d files", shown) : String.format("%d of %d files", visible, shown);
+        if (!finished) {
+            text += ", searching...";
+        } else if (totalCount > shown) {
+            text += String.format(" (the most relevant of %d)", totalCount);
+        }
+        status.setText(text);
+    }
+
+    private void show() {
+        showTimer.stop();
+        if (closed || null != dialog) {
+            return;
+        }
+        Window owner = null == component ? null : SwingUtilities.getWindowAncestor(component);
+        dialog = new JDialog(owner);
+        dialog.setUndecorated(true);
+        dialog.setModal(false);
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setVisibleRowCount(VISIBLE_ROWS);
+        //fixed cell sizes, so that the list does not measure all items
+        list.setPrototypeCellValue(new Item(null, "mmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmm", 0));
+        list.addMouseListener(new MouseAdapter() {
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    openSelected();
+                }
+            }
+        });
+        filter.getDocument().addDocumentListener(new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+        });
+        filter.addKeyListener(new KeyAdapter() {
+
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_ENTER:
+                        openSelected();
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        close();
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_UP:
+                        moveSelection(-1);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_DOWN:
+                        moveSelection(1);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_PAGE_UP:
+                        moveSelection(-VISIBLE_ROWS);
+                        e.consume();
+                        break;
+                    case KeyEvent.VK_PAGE_DOWN:
+                        moveSelection(VISIBLE_ROWS);
+                        e.consume();
+                        break;
+                    default:
+                }
+            }
+        });
+        dialog.addWindowFocusListener(new WindowAdapter() {
+
+            @Override
+            public void windowLostFocus(WindowEvent e) {
+                close();
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(0, 2));
+        panel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createEtchedBorder(), BorderFactory.createEmptyBorder(2, 2, 2, 2)));
+        panel.add(new JLabel("Multiple files found. Please choose:"), BorderLayout.NORTH);
+        JPanel center = new JPanel(new BorderLayout(0, 2));
+        center.add(filter, BorderLayout.NORTH);
+        center.add(new JScrollPane(list), BorderLayout.CENTER);
+        panel.add(center, BorderLayout.CENTER);
+        panel.add(status, BorderLayout.SOUTH);
+        dialog.getContentPane().add(panel);
+        dialog.pack();
+        dialog.setLocation(getLocation());
+        dialog.setVisible(true);
+        filter.requestFocusInWindow();
+    }
+
+    private Point getLocation() {
+        if (null != component && component.isShowing()) {
+            try {
+                Rectangle rectangle = component.modelToView(position);
+                if (null != rectangle) {
+                    Point point = new Point(rectangle.x, rectangle.y + rectangle.height);
+                    SwingUtilities.convertPointToScreen(point, component);
+                    return point;
+                }
+            } catch (BadLocationException ex) {
+                //the document has been changed meanwhile
+            }
+        }
+        Rectangle screen = dialog.getGraphicsConfiguration().getBounds();
+        return new Point(screen.x + (screen.width - dialog.getWidth()) / 2, screen.y + (screen.height - dialog.getHeight()) / 2);
+    }
+
+    private void filterChanged() {
+        model.setFilter(filter.getText());
+        if (model.getSize() > 0) {
+            list.setSelectedIndex(0);
+            list.ensureIndexIsVisible(0);
+        }
+        updateStatus();
+    }
+
+    private void moveSelection(int delta) {
+        final int size = model.getSize();
+        if (0 == size) {
+            return;
+        }
+        final int index = Math.max(0, Math.min(size - 1, list.getSelectedIndex() + delta));
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    private void openSelected() {
+        final Item selected = list.getSelectedValue();
+        if (null == selected) {
+            return;
+        }
+        close();
+        ResourceHyperlinkProvider.openInEditor(selected.file);
+    }
+
+    private void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        showTimer.stop();
+        if (null != task) {
+            task.cancel();
+        }
+        if (null != dialog) {
+            dialog.dispose();
+        }
+    }
+
+    static final class Item {
+
+        private final FileObject file;
+        private final String path;
+        private final String lowerCasePath;
+        /**
+         * the relevance, lower is more relevant
+         */
+        private final long key;
+
+        Item(FileObject file, String path, long key) {
+            this.file = file;
+            this.path = path;
+            this.lowerCasePath = path.toLowerCase();
+            this.key = key;
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+    }
+
+    /**
+     * All items and the indexes of those matching the filter. The items are
+     * sorted by relevance, except the ones appended while the popup is
+     * showing.
+     */
+    private static final class ItemModel extends AbstractListModel<Item> {
+
+        private final List<Item> all = new ArrayList<Item>();
+        private int[] visible = new int[16];
+        private int visibleCount;
+        private String lowerCaseFilter = "";
+
+        /**
+         * @param items
+         * @param sort sort all items by relevance, otherwise the items are
+         * appended and the rows shown keep their position
+         */
+        void add(List<Item> items, boolean sort) {
+            if (sort) {
+                all.addAll(items);
+                sort();
+                refilter();
+                return;
+            }
+            final int oldCount = visibleCount;
+            for (Item item : items) {
+                all.add(item);
+                if (item.lowerCasePath.contains(lowerCaseFilter)) {
+                    if (visibleCount == visible.length) {
+                        visible = Arrays.copyOf(visible, visibleCount * 2);
+                    }
+                    visible[visibleCount++] = all.size() - 1;
+                }
+            }
+            if (visibleCount > oldCount) {
+                fireIntervalAdded(this, oldCount, visibleCount - 1);
+            }
+        }
+
+        void remove(Collection<FileObject> files) {
+            final Set<FileObject> removed = new HashSet<FileObject>(files);
+            for (Iterator<Item> it = all.iterator(); it.hasNext();) {
+                if (removed.contains(it.next().file)) {
+                    it.remove();
+                }
+            }
+            refilter();
+        }
+
+        void setFilter(String text) {
+            final String newFilter = text.trim().toLowerCase();
+            if (newFilter.equals(lowerCaseFilter)) {
+                return;
+            }
+            lowerCaseFilter = newFilter;
+            //the selection jumps to the top anyway, so the late matches can take their place
+            sort();
+            refilter();
+        }
+
+        private void sort() {
+            Collections.sort(all, new Comparator<Item>() {
+
+                @Override
+                public int compare(Item o1, Item o2) {
+                    return o1.key < o2.key ? -1 : (o1.key == o2.key ? 0 : 1);
+                }
+            });
+        }
+
+        int indexOf(Item item) {
+            for (int i = 0; i < visibleCount; i++) {
+                if (all.get(visible[i]) == item) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void refilter() {
+            final int oldCount = visibleCount;
+            if (visible.length < all.size()) {
+                visible = new int[Math.max(all.size(), visible.length * 2)];
+            }
+            visibleCount = 0;
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).lowerCasePath.contains(lowerCaseFilter)) {
+                    visible[visibleCount++] = i;
+                }
+            }
+            if (visibleCount > oldCount) {
+                fireIntervalAdded(this, oldCount, visibleCount - 1);
+            } else if (visibleCount < oldCount) {
+                fireIntervalRemoved(this, visibleCount, oldCount - 1);
+            }
+            if (Math.min(oldCount, visibleCount) > 0) {
+                fireContentsChanged(this, 0, Math.min(oldCount, visibleCount) - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return visibleCount;
+        }
+
+        @Override
+        public Item getElementAt(int index) {
+            return all.get(visible[index]);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+
+/**
+ * The file names of a {@link ResourceIndex} persisted in the cache directory
+ * of the IDE. After a restart it answers the exact name lookups, until the
+ * in-memory index has been built in the background. The file is mapped into
+ * memory, so it costs almost no heap, and the files are only looked up, when
+ * their name is asked for.
+ * <p>
+ * Layout (big endian):
+ * </p>
+ * <pre>
+ * int magic, int version
+ * int rootCount, rootCount * string path
+ * int folderCount, folderCount * (short rootId, string path relative to the root, long lastModified)
+ * int entryCount, entryCount * int offset of the entry (sorted by name)
+ * entries: short rootId, string lowercased name, string path relative to the root
+ * </pre>
+ * A string is written as short length and UTF-8 bytes. The file is only used,
+ * if the roots are unchanged. A folder gets a new timestamp, when a file is
+ * created, deleted or renamed within it, so only the folders with another
+ * timestamp are listed again while loading and their new files are kept in
+ * the heap. A found file is checked for existence, so deleted files are
+ * skipped.
+ * <p>
+ * Each write goes to a new generation of the file, because a mapped file can
+ * not be replaced on Windows. The older generations are deleted, as soon as
+ * they are not mapped anymore.
+ * </p>
+ *
+ * @author markiewb
+ */
+final class PersistentIndex {
+
+    private static final Logger LOG = Logger.getLogger(PersistentIndex.class.getName());
+    private static final int MAGIC = 0x52484958;
+    private static final int VERSION = 3;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String CACHE_FOLDER = "de-markiewb-resourcehyperlink";
+
+    private final List<FileObject> roots;
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final int offsetTable;
+    /**
+     * lowercased name with extension -&gt; files missing in the file, f.e.
+     * created in a modified folder or after loading
+     */
+    private final Map<String, Set<FileObject>> added = new HashMap<String, Set<FileObject>>();
+
+    private PersistentIndex(List<FileObject> roots, ByteBuffer buffer, int entryCount, int offsetTable) {
+        this.roots = roots;
+        this.buffer = buffer;
+        this.entryCount = entryCount;
+        this.offsetTable = offsetTable;
+    }
+
+    /**
+     * @param projectDirectory
+     * @return the file holding the index of the project, the generations are
+     * written next to it
+     */
+    static File getFile(FileObject projectDirectory) {
+        final String path = projectDirectory.getPath();
+        final String name = projectDirectory.getNameExt().replaceAll("[^A-Za-z0-9._-]", "_");
+        return new File(Places.getCacheSubdirectory(CACHE_FOLDER), String.format("%s-%08x.idx", name, path.hashCode()));
+    }
+
+    /**
+     * Maps the newest generation of the index file, if it has been written
+     * for the same roots. The folders modified since are listed again.
+     *
+     * @param file
+     * @param currentRoots
+     * @return the index or {@code null} if there is no valid file
+     */
+    static PersistentIndex load(File file, Collection<FileObject> currentRoots) {
+        final List<File> generations = getGenerations(file);
+        if (generations.isEmpty()) {
+            return null;
+        }
+        final File newest = generations.get(0);
+        deleteAll(generations.subList(1, generations.size()));
+        try {
+            final ByteBuffer buffer;
+            RandomAccessFile raf = new RandomAccessFile(newest, "r");
+            try {
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            } finally {
+                //the mapping stays valid
+                raf.close();
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            final List<FileObject> roots = new ArrayList<FileObject>(currentRoots);
+            if (buffer.getInt() != roots.size()) {
+                return null;
+            }
+            List<File> rootFiles = new ArrayList<File>(roots.size());
+            for (FileObject root : roots) {
+                final File rootFile = FileUtil.toFile(root);
+                if (null == rootFile || !root.getPath().equals(readString(buffer))) {
+                    LOG.fine(String.format("%s is outdated", newest));
+                    return null;
+                }
+                rootFiles.add(rootFile);
+            }
+            //a single stat per folder, only the modified ones are listed
+            final int folderCount = buffer.getInt();
+            Set<String> knownFolders = new HashSet<String>(folderCount * 2);
+            List<String> modifiedFolders = new ArrayList<String>();
+            for (int i = 0; i < folderCount; i++) {
+                final int rootId = buffer.getShort();
+                final String relativePath = readString(buffer);
+                final long lastModified = buffer.getLong();
+                if (rootId >= rootFiles.size()) {
+                    return null;
+                }
+                knownFolders.add(rootId + ":" + relativePath);
+                if (new File(rootFiles.get(rootId), relativePath).lastModified() != lastModified) {
+                    modifiedFolders.add(rootId + ":" + relativePath);
+                }
+            }
+            final int entryCount = buffer.getInt();
+            PersistentIndex index = new PersistentIndex(roots, buffer, entryCount, buffer.position());
+            for (String folder : modifiedFolders) {
+                final int separator = folder.indexOf(':');
+                index.repair(Integer.parseInt(folder.substring(0, separator)), folder.substring(separator + 1), knownFolders);
+            }
+            LOG.fine(String.format("loaded %s, %d of %d folders have been modified", newest, modifiedFolders.size(), folderCount));
+            return index;
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, null, ex);
+            return null;
+        } catch (RuntimeException ex) {
+            //f.e. a truncated file
+            LOG.log(Level.FINE, null, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Lists the modified folder again, new folders within it are walked. The
+     * deleted files need no repair, they are skipped by the existence check.
+     */
+    private void repair(int rootId, String relativePath, Set<String> knownFolders) {
+        final FileObject root = roots.get(rootId);
+        final FileObject folder = relativePath.isEmpty() ? root : ResourceResolver.getFileObjectInASafeManner(root, relativePath);
+        if (null == folder || !folder.isFolder()) {
+            return;
+        }
+        for (FileObject child : folder.getChildren()) {
+            if (child.isData()) {
+                add(child);
+            } else if (child.isFolder() && !knownFolders.contains(rootId + ":" + FileUtil.getRelativePath(root, child))) {
+                add(child);
+            }
+        }
+    }
+
+    /**
+     * Remembers a file or all files below a folder, which are missing in the
+     * file.
+     *
+     * @param fileObject
+     */
+    void add(FileObject fileObject) {
+        if (fileObject.isFolder()) {
+            Enumeration<? extends FileObject> children = fileObject.getChildren(true);
+            while (children.hasMoreElements()) {
+                FileObject child = children.nextElement();
+                if (child.isData()) {
+                    add(child);
+                }
+            }
+            return;
+        }
+        final String name = fileObject.getNameExt().toLowerCase();
+        synchronized (added) {
+            Set<FileObject> named = added.get(name);
+            if (null == named) {
+                named = new LinkedHashSet<FileObject>(2);
+                added.put(name, named);
+            }
+            named.add(fileObject);
+        }
+    }
+
+    /**
+     * Writes the files below the roots and the timestamps of the folders to
+     * a new generation of the index file.
+     *
+     * @param file
+     * @param roots
+     * @param folders all folders below the roots, also the empty ones
+     * @param files
+     */
+    static void store(File file, Collection<FileObject> roots, Collection<FileObject> folders, Collection<FileObject> files) {
+        final List<FileObject> rootList = new ArrayList<FileObject>(roots);
+        List<File> rootFiles = new ArrayList<File>(rootList.size());
+        for (FileObject root : rootList) {
+            final File rootFile = FileUtil.toFile(root);
+            if (null == rootFile) {
+                //not on disk, the timestamps could not be checked
+                return;
+            }
+            rootFiles.add(rootFile);
+        }
+        List<Object[]> folderStamps = new ArrayList<Object[]>(folders.size());
+        for (FileObject folder : folders) {
+            for (int rootId = 0; rootId < rootList.size(); rootId++) {
+                String relativePath = FileUtil.getRelativePath(rootList.get(rootId), folder);
+                if (null != relativePath) {
+                    final long lastModified = new File(rootFiles.get(rootId), relativePath).lastModified();
+                    folderStamps.add(new Object[]{relativePath.getBytes(UTF8), rootId, lastModified});
+                    break;
+                }
+            }
+        }
+        List<Object[]> entries = new ArrayList<Object[]>(files.size());
+        for (FileObject fileObject : files) {
+            for (int rootId = 0; rootId < rootList.size(); rootId++) {
+                String relativePath = FileUtil.getRelativePath(rootList.get(rootId), fileObject);
+                if (null != relativePath) {
+                    entries.add(new Object[]{fileObject.getNameExt().toLowerCase().getBytes(UTF8), relativePath.getBytes(UTF8), rootId});
+                    break;
+                }
+            }
+        }
+        Collections.sort(entries, new Comparator<Object[]>() {
+
+            @Override
+            public int compare(Object[] o1, Object[] o2) {
+                return compareBytes((byte[]) o1[0], (byte[]) o2[0]);
+            }
+        });
+        final List<File> generations = getGenerations(file);
+        final long generation = generations.isEmpty() ? 1 : getGeneration(file, generations.get(0)) + 1;
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(rootList.size());
+                for (FileObject root : rootList) {
+                    writeString(out, root.getPath().getBytes(UTF8));
+                }
+                out.writeInt(folderStamps.size());
+                for (Object[] folderStamp : folderStamps) {
+                    out.writeShort((Integer) folderStamp[1]);
+                    writeString(out, (byte[]) folderStamp[0]);
+                    out.writeLong((Long) folderStamp[2]);
+                }
+                out.writeInt(entries.size());
+                int offset = out.size() + 4 * entries.size();
+                for (Object[] entry : entries) {
+                    out.writeInt(offset);
+                    offset += 2 + 2 + ((byte[]) entry[0]).length + 2 + ((byte[]) entry[1]).length;
+                }
+                for (Object[] entry : entries) {
+                    out.writeShort((Integer) entry[2]);
+                    writeString(out, (byte[]) entry[0]);
+                    writeString(out, (byte[]) entry[1]);
+                }
+            } finally {
+                out.close();
+            }
+            //a new name, the previous generation may still be mapped
+            if (!tmp.renameTo(new File(file.getPath() + "." + generation))) {
+                LOG.fine(String.format("cannot rename %s", tmp));
+                return;
+            }
+            deleteAll(generations);
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, null, ex);
+        }
+    }
+
+    /**
+     * @return the generations of the file, the newest first
+     */
+    private static List<File> getGenerations(final File file) {
+        List<File> generations = new ArrayList<File>();
+        final File[] siblings = file.getParentFile().listFiles();
+        if (null == siblings) {
+            return generations;
+        }
+        for (File sibling : siblings) {
+            if (getGeneration(file, sibling) >= 0) {
+                generations.add(sibling);
+            }
+        }
+        Collections.sort(generations, new Comparator<File>() {
+
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.valueOf(getGeneration(file, o2)).compareTo(getGeneration(file, o1));
+            }
+        });
+        return generations;
+    }
+
+    /**
+     * @return the generation of the sibling or -1, if it is no generation of
+     * the file
+     */
+    private static long getGeneration(File file, File sibling) {
+        final String prefix = file.getName() + ".";
+        final String name = sibling.getName();
+        if (!name.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            //f.e. the temporary file
+            return -1;
+        }
+    }
+
+    /**
+     * A generation, which is still mapped, can not be deleted on Windows, it
+     * is deleted with the next write.
+     */
+    private static void deleteAll(List<File> files) {
+        for (File old : files) {
+            if (!old.delete()) {
+                LOG.fine(String.format("cannot delete %s yet", old));
+            }
+        }
+    }
+
+    /**
+     * @param lowerCaseName the name with extension in lowercase
+     * @return {@code true} if there has been a file with the name, when the
+     * index has been written, or one has been added since
+     */
+    boolean containsName(String lowerCaseName) {
+        synchronized (added) {
+            if (added.containsKey(lowerCaseName)) {
+                return true;
+            }
+        }
+        final byte[] key = lowerCaseName.getBytes(UTF8);
+        final ByteBuffer view = buffer.duplicate();
+        final int first = findFirst(view, key);
+        return first < entryCount && 0 == compareBytes(readName(view, first), key);
+    }
+
+    /**
+     * @param lowerCaseName the name with extension in lowercase
+     * @return the still existing files with the name
+     */
+    List<FileObject> findByName(String lowerCaseName) {
+        final byte[] key = lowerCaseName.getBytes(UTF8);
+        final ByteBuffer view = buffer.duplicate();
+        Set<FileObject> result = new LinkedHashSet<FileObject>();
+        for (int i = findFirst(view, key); i < entryCount; i++) {
+            if (0 != compareBytes(readName(view, i), key)) {
+                break;
+            }
+            //positioned after the name
+            final String relativePath = readString(view);
+            final int rootId = view.getShort(view.getInt(offsetTable + 4 * i));
+            if (rootId < roots.size()) {
+                FileObject fileObject = ResourceResolver.getFileObjectInASafeManner(roots.get(rootId), relativePath);
+                if (null != fileObject && fileObject.isData()) {
+                    result.add(fileObject);
+                }
+            }
+        }
+        synchronized (added) {
+            final Set<FileObject> named = added.get(lowerCaseName);
+            if (null != named) {
+                for (FileObject fileObject : named) {
+                    if (fileObject.isValid() && fileObject.isData()) {
+                        result.add(fileObject);
+                    }
+                }
+            }
+        }
+        return new ArrayList<FileObject>(result);
+    }
+
+    /**
+     * @return the roots the index has been validated against
+     */
+    List<FileObject> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Binary search for the first entry, whose name is not less than the key.
+     */
+    private int findFirst(ByteBuffer view, byte[] key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (compareBytes(readName(view, mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Positions the view after the name of the entry.
+     */
+    private byte[] readName(ByteBuffer view, int entry) {
+        view.position(view.getInt(offsetTable + 4 * entry) + 2);
+        return readBytes(view);
+    }
+
+    private static void writeString(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), UTF8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int compareBytes(byte[] b1, byte[] b2) {
+        final int length = Math.min(b1.length, b2.length);
+        for (int i = 0; i < length; i++) {
+            if (b1[i] != b2[i]) {
+                return (b1[i] & 0xff) - (b2[i] & 0xff);
+            }
+        }
+        return b1.length - b2.length;
+    }
+}
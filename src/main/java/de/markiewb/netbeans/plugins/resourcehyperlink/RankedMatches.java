@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Keeps the K most relevant matches of a lookup in a bounded heap and counts
+ * all matches. A match is ranked by
+ * <ol>
+ * <li>the {@link ResolverOptions#getPriority(ResolutionStrategy) priority}
+ * of the strategy, which found it</li>
+ * <li>the name: equal to the searched name, starting with it, containing
+ * it</li>
+ * <li>the order, in which the matches have been added</li>
+ * </ol>
+ * So neither memory nor sorting depend on the number of matches of short
+ * partial literals. The scans of the index {@link #offer(FileObject) offer}
+ * each hit to a bounded instance instead of collecting all matches. A file
+ * found by several strategies is counted once, as long as it is among the top
+ * K. Not thread-safe.
+ *
+ * @author markiewb
+ */
+final class RankedMatches {
+
+    /**
+     * maximum number of matches kept per lookup
+     */
+    static final int DEFAULT_LIMIT = 200;
+    private static final Comparator<Hit> WORST_FIRST = new Comparator<Hit>() {
+
+        @Override
+        public int compare(Hit o1, Hit o2) {
+            return o1.key > o2.key ? -1 : (o1.key == o2.key ? 0 : 1);
+        }
+    };
+    private static final Comparator<Hit> BEST_FIRST = Collections.reverseOrder(WORST_FIRST);
+
+    private final int limit;
+    private final String lowerCaseName;
+    private final PriorityQueue<Hit> heap;
+    private final Map<FileObject, Hit> retained = new HashMap<FileObject, Hit>();
+    /**
+     * the files dropped from the top K since the last
+     * {@link #drainEvicted()}, {@code null} if not recorded
+     */
+    private final List<FileObject> evicted;
+    private int totalCount;
+    private int sequence;
+
+    /**
+     * @param limit the maximum number of matches kept
+     * @param path the searched path, its last segment is compared with the
+     * names of the matches
+     */
+    RankedMatches(int limit, String path) {
+        this(limit, path, false);
+    }
+
+    /**
+     * @param limit the maximum number of matches kept
+     * @param path the searched path, its last segment is compared with the
+     * names of the matches
+     * @param recordEvictions remember the files dropped from the top K, f.e.
+     * to remove them from a list shown already
+     */
+    RankedMatches(int limit, String path, boolean recordEvictions) {
+        this.limit = limit;
+        this.lowerCaseName = path.substring(path.lastIndexOf('/') + 1).toLowerCase();
+        this.heap = new PriorityQueue<Hit>(Math.min(limit, 16) + 1, WORST_FIRST);
+        this.evicted = recordEvictions ? new ArrayList<FileObject>() : null;
+    }
+
+    /**
+     * Adds a match of the single strategy filling this instance.
+     *
+     * @param file
+     * @return {@code true} if the file is among the top K now
+     */
+    boolean offer(FileObject file) {
+        return null != add(file, 0);
+    }
+
+    /**
+     * @param file
+     * @param priority the priority of the strategy, which found the file
+     * @return the hit, if it is among the top K now, or {@code null} if the
+     * file has been known already or is not relevant enough
+     */
+    Hit add(FileObject file, int priority) {
+        final Hit hit = new Hit(file, key(priority, nameQuality(file), sequence++));
+        final Hit known = retained.get(file);
+        if (null != known) {
+            if (known.key <= hit.key) {
+                return null;
+            }
+            //found again by a better strategy
+            heap.remove(known);
+        } else {
+            totalCount++;
+            if (heap.size() >= limit) {
+                if (WORST_FIRST.compare(heap.peek(), hit) >= 0) {
+                    return null;
+                }
+                final FileObject dropped = heap.poll().file;
+                retained.remove(dropped);
+                if (null != evicted) {
+                    evicted.add(dropped);
+                }
+            }
+        }
+        heap.add(hit);
+        retained.put(file, hit);
+        return null == known ? hit : null;
+    }
+
+    boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * @return the number of all matches, including those not kept
+     */
+    int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Counts matches, which have been dropped before they could be added.
+     *
+     * @param count
+     */
+    void addOmitted(int count) {
+        totalCount += count;
+    }
+
+    /**
+     * @return the files dropped from the top K since the last call, they may
+     * have been returned by {@link #add} before
+     */
+    List<FileObject> drainEvicted() {
+        if (null == evicted || evicted.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<FileObject> result = new ArrayList<FileObject>(evicted);
+        evicted.clear();
+        return result;
+    }
+
+    /**
+     * @return the kept matches, the most relevant first, and the number of the
+     * matches not kept
+     */
+    TopList toTopList() {
+        final List<FileObject> files = toList();
+        return new TopList(files, totalCount - files.size());
+    }
+
+    /**
+     * @return the kept matches, the most relevant first
+     */
+    List<FileObject> toList() {
+        List<Hit> hits = new ArrayList<Hit>(heap);
+        Collections.sort(hits, BEST_FIRST);
+        List<FileObject> result = new ArrayList<FileObject>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.file);
+        }
+        return result;
+    }
+
+    private int nameQuality(FileObject file) {
+        final String name = file.getNameExt().toLowerCase();
+        if (name.equals(lowerCaseName)) {
+            return 0;
+        }
+        return name.startsWith(lowerCaseName) ? 1 : 2;
+    }
+
+    private static long key(int rank, int nameQuality, int sequence) {
+        return ((long) rank << 34) | ((long) nameQuality << 32) | (sequence & 0xffffffffL);
+    }
+
+    /**
+     * The result of a bounded scan: the kept matches and the number of the
+     * matches, which have not been kept.
+     */
+    static final class TopList extends AbstractList<FileObject> {
+
+        private final List<FileObject> files;
+        private final int omittedCount;
+
+        TopList(List<FileObject> files, int omittedCount) {
+            this.files = files;
+            this.omittedCount = omittedCount;
+        }
+
+        @Override
+        public FileObject get(int index) {
+            return files.get(index);
+        }
+
+        @Override
+        public int size() {
+            return files.size();
+        }
+
+        int getOmittedCount() {
+            return omittedCount;
+        }
+    }
+
+    /**
+     * A kept match. A lower key is more relevant.
+     */
+    static final class Hit {
+
+        final FileObject file;
+        final long key;
+
+        private Hit(FileObject file, long key) {
+            this.file = file;
+            this.key = key;
+        }
+    }
+}
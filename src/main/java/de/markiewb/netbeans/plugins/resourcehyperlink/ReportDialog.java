@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.awt.Font;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import org.openide.DialogDisplayer;
+import org.openide.NotifyDescriptor;
+
+/**
+ * Shows a plain text report in a read-only, monospaced text area, so that
+ * the columns line up and the text can be copied.
+ *
+ * @author markiewb
+ */
+final class ReportDialog {
+
+    private ReportDialog() {
+    }
+
+    /**
+     * Has to be called in the EDT.
+     *
+     * @param report
+     */
+    static void show(String report) {
+        JTextArea textArea = new JTextArea(report, 20, 100);
+        textArea.setEditable(false);
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, textArea.getFont().getSize()));
+        DialogDisplayer.getDefault().notify(new NotifyDescriptor.Message(new JScrollPane(textArea), NotifyDescriptor.INFORMATION_MESSAGE));
+    }
+}
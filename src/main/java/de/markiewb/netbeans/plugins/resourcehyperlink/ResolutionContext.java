@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import javax.swing.text.Document;
+import org.netbeans.api.project.FileOwnerQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.modules.editor.NbEditorUtilities;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Everything the {@link ResolutionStrategy strategies} need to know about the
+ * file containing the literal. It does not depend on the literal, so it can be
+ * shared by all literals of a file.
+ *
+ * @author markiewb
+ */
+final class ResolutionContext {
+
+    static ResolutionContext create(Document doc, ResolverOptions options, long budgetMillis) {
+        return create(NbEditorUtilities.getFileObject(doc), options, budgetMillis);
+    }
+
+    static ResolutionContext create(FileObject docFO, ResolverOptions options, long budgetMillis) {
+        Project project = null;
+        if (null != docFO) {
+            project = FileOwnerQuery.getOwner(docFO);
+        }
+        return create(docFO, project, options, budgetMillis);
+    }
+
+    /**
+     * @param docFO
+     * @param project the project owning the file
+     * @param options
+     * @param budgetMillis
+     * @return
+     */
+    static ResolutionContext create(FileObject docFO, Project project, ResolverOptions options, long budgetMillis) {
+        return create(docFO, project, ResourceIndex.get(project), options, budgetMillis);
+    }
+
+    /**
+     * @param docFO
+     * @param project the project owning the file, f.e. a stub outside of the
+     * IDE
+     * @param index the index of the project, may be {@code null}
+     * @param options
+     * @param budgetMillis
+     * @return
+     */
+    static ResolutionContext create(FileObject docFO, Project project, ResourceIndex index, ResolverOptions options, long budgetMillis) {
+        return new ResolutionContext(docFO, project, index, options, budgetMillis, false);
+    }
+
+    /**
+     * the file containing the literal, may be {@code null}
+     */
+    final FileObject docFO;
+    /**
+     * the project owning the file, may be {@code null}
+     */
+    final Project project;
+    /**
+     * the index of the project, may be {@code null}
+     */
+    final ResourceIndex index;
+    /**
+     * the options at the time the context has been created
+     */
+    final ResolverOptions options;
+    /**
+     * time budget of a lookup, 0 for no limit
+     */
+    final long budgetMillis;
+    /**
+     * run the strategies one after another in the calling thread instead of
+     * the shared pools of the interactive lookups
+     */
+    final boolean inCallingThread;
+
+    private ResolutionContext(FileObject docFO, Project project, ResourceIndex index, ResolverOptions options, long budgetMillis, boolean inCallingThread) {
+        this.docFO = docFO;
+        this.project = project;
+        this.index = index;
+        this.options = options;
+        this.budgetMillis = budgetMillis;
+        this.inCallingThread = inCallingThread;
+    }
+
+    /**
+     * @return the same context for background work like the batch, which must
+     * not delay the lookups of the editor
+     */
+    ResolutionContext inCallingThread() {
+        return new ResolutionContext(docFO, project, index, options, budgetMillis, true);
+    }
+}
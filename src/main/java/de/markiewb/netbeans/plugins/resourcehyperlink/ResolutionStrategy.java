@@ -0,0 +1,257 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import org.openide.filesystems.FileObject;
+
+/**
+ * The strategies to resolve a literal to files. The matches are ranked by the
+ * priority of their strategy, the strategies of equal priority are merged in
+ * the order of the constants. By default exact paths (also within the archives
+ * on the classpath) come before matches in the same directory, before matches
+ * in the same package of other roots, before partial matches in the source
+ * roots and patterns, before classes. Each strategy can be disabled and
+ * reprioritized in the options.
+ *
+ * @author markiewb
+ */
+enum ResolutionStrategy {
+
+    /**
+     * a) exists in current dir? exact matching
+     */
+    CURRENT_DIRECTORY(0, true, LiteralKind.RELATIVE_PATH, LiteralKind.ABSOLUTE_PATH, LiteralKind.FILE_NAME, LiteralKind.CLASS_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            final String relativePath = toRelativePath(path);
+            if (null == relativePath) {
+                return Collections.emptyList();
+            }
+            return ResourceResolver.asCollection(ResourceResolver.getMatchingFileInCurrentDirectory(ctx.docFO, relativePath));
+        }
+    },
+    /**
+     * b) exists in current dir? partial matching
+     */
+    CURRENT_DIRECTORY_PARTIAL(10, false, LiteralKind.FILE_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            if (null == ctx.docFO || null == ctx.docFO.getParent()) {
+                return Collections.emptyList();
+            }
+            return ResourceResolver.partialMatches(ctx, path, ctx.docFO.getParent());
+        }
+    },
+    /**
+     * c) fallback to search exact in all source roots
+     */
+    SOURCE_ROOTS(1, true, LiteralKind.RELATIVE_PATH, LiteralKind.ABSOLUTE_PATH, LiteralKind.FILE_NAME, LiteralKind.CLASS_NAME, LiteralKind.URI) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            final String relativePath = toRelativePath(path);
+            if (null == ctx.project || null == relativePath) {
+                return Collections.emptyList();
+            }
+            return ResourceResolver.getMatchingFilesFromSourceRoots(ctx.project, relativePath);
+        }
+    },
+    /**
+     * c) fallback to search partial in all source roots
+     */
+    SOURCE_ROOTS_PARTIAL(30, false, LiteralKind.FILE_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            if (null == ctx.project) {
+                return Collections.emptyList();
+            }
+            return ResourceResolver.getPartialMatchesFromSourceRoots(ctx, path);
+        }
+    },
+    /**
+     * d) fallback to exact matches in project root
+     */
+    PROJECT_ROOT(2, true, LiteralKind.RELATIVE_PATH, LiteralKind.ABSOLUTE_PATH, LiteralKind.FILE_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            final String relativePath = toRelativePath(path);
+            if (null == ctx.project || null == relativePath) {
+                return Collections.emptyList();
+            }
+            FileObject projectDirectory = ctx.project.getProjectDirectory();
+            FileObject fileObjectAtProjectRoot = ResourceResolver.getFileObjectInASafeManner(projectDirectory, relativePath);
+            if (fileObjectAtProjectRoot != null && !fileObjectAtProjectRoot.isFolder()) {
+                return Collections.singletonList(fileObjectAtProjectRoot);
+            }
+            return Collections.emptyList();
+        }
+    },
+    /**
+     * e) fallback to support absolute paths - exact match
+     */
+    ABSOLUTE_PATH(3, true, LiteralKind.ABSOLUTE_PATH, LiteralKind.URI) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            return ResourceResolver.asCollection(AbsolutePaths.find(path));
+        }
+    },
+    /**
+     * f) support fqn classnames
+     */
+    CLASS_NAME(40, false, LiteralKind.CLASS_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            if (null == ctx.docFO) {
+                return Collections.emptyList();
+            }
+            return ResourceResolver.findByClassName(ctx.docFO, path);
+        }
+    },
+    /**
+     * g) fallback to partial matches of file in same package, but different
+     * sourceroot
+     */
+    SAME_PACKAGE_OTHER_ROOT(20, false, LiteralKind.FILE_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            if (null == ctx.project || null == ctx.docFO) {
+                return Collections.emptyList();
+            }
+            return ResourceResolver.getMatchingFilesFromOtherSourceRootsButWithinSamePackage(ctx, path, ctx.docFO);
+        }
+    },
+    /**
+     * h) partial matches anywhere below the source roots (opt-in, needs the
+     * index of the project)
+     */
+    DEEP_PARTIAL(31, false, LiteralKind.FILE_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            if (!ctx.options.partialMatching || !ctx.options.deepPartialMatching || null == ctx.index) {
+                return Collections.emptyList();
+            }
+            final RankedMatches sink = new RankedMatches(RankedMatches.DEFAULT_LIMIT, path);
+            if (!ctx.index.findDeep(path.toLowerCase(), sink)) {
+                //a recursive scan would be too slow, so wait for the index
+                return Collections.emptyList();
+            }
+            return sink.toTopList();
+        }
+    },
+    /**
+     * i) the same in the source roots of the other open projects (opt-in)
+     */
+    OTHER_PROJECTS(32, false, LiteralKind.RELATIVE_PATH, LiteralKind.FILE_NAME) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            if (!ctx.options.workspaceSearch) {
+                return Collections.emptyList();
+            }
+            return WorkspaceSearch.find(ctx, path);
+        }
+    },
+    /**
+     * j) exact matches in the archives of the compile and execute classpath,
+     * f.e. {@code META-INF/spring.factories} of a dependency
+     */
+    CLASSPATH_ARCHIVES(4, true, LiteralKind.RELATIVE_PATH, LiteralKind.ABSOLUTE_PATH, LiteralKind.URI) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            return ArchiveIndex.find(ctx.docFO, path);
+        }
+    },
+    /**
+     * k) the files below the source roots, whose path relative to a source
+     * root or to the project directory matches the pattern (needs the index of
+     * the project)
+     */
+    GLOB(33, false, LiteralKind.GLOB) {
+        @Override
+        Collection<FileObject> find(ResolutionContext ctx, String path) {
+            if (null == ctx.index) {
+                return Collections.emptyList();
+            }
+            Collection<FileObject> matches = ctx.index.findByGlob(GlobPattern.compile(path), RankedMatches.DEFAULT_LIMIT);
+            if (null == matches) {
+                //a recursive scan would be too slow, so wait for the index
+                return Collections.emptyList();
+            }
+            return matches;
+        }
+    };
+
+    private final int defaultPriority;
+    private final boolean exactPath;
+    private final Set<LiteralKind> kinds;
+
+    private ResolutionStrategy(int defaultPriority, boolean exactPath, LiteralKind first, LiteralKind... rest) {
+        this.defaultPriority = defaultPriority;
+        this.exactPath = exactPath;
+        this.kinds = EnumSet.of(first, rest);
+    }
+
+    /**
+     * @param kind
+     * @return {@code true} if the strategy can resolve literals of the kind
+     */
+    boolean appliesTo(LiteralKind kind) {
+        return kinds.contains(kind);
+    }
+
+    /**
+     * @return the relevance of the matches of the strategy, if not configured
+     * otherwise, lower is more relevant
+     */
+    int getDefaultPriority() {
+        return defaultPriority;
+    }
+
+    /**
+     * @return {@code true} if the strategy only resolves the literal as exact
+     * path, which costs a single lookup of a file
+     */
+    boolean isExactPath() {
+        return exactPath;
+    }
+
+    abstract Collection<FileObject> find(ResolutionContext ctx, String path);
+
+    /**
+     * A leading slash is dropped, like {@link Class#getResource(String)} does,
+     * so {@code /com/foo/bar.properties} is looked up below the folders on
+     * every OS.
+     *
+     * @param path
+     * @return the path relative to a folder or {@code null} for other
+     * absolute paths, f.e. {@code C:\foo\bar.txt}
+     */
+    static String toRelativePath(String path) {
+        int start = 0;
+        while (start < path.length() && '/' == path.charAt(start)) {
+            start++;
+        }
+        if (start == path.length()) {
+            return null;
+        }
+        if (0 == start) {
+            return AbsolutePaths.looksAbsolute(path) ? null : path;
+        }
+        return path.substring(start);
+    }
+}
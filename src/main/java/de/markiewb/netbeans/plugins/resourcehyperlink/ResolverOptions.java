@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import de.markiewb.netbeans.plugins.resourcehyperlink.options.ConfigPanel;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.prefs.Preferences;
+
+/**
+ * An immutable snapshot of the options. It is read once from the preferences
+ * and replaced as a whole, when they change, so a lookup sees consistent
+ * options without querying the preferences.
+ *
+ * @author markiewb
+ */
+final class ResolverOptions {
+
+    final boolean partialMatching;
+    /**
+     * partial matching of the files anywhere below the source roots
+     */
+    final boolean deepPartialMatching;
+    final boolean asyncResolution;
+    final boolean stopAtFirstExactMatch;
+    /**
+     * search the other open projects too
+     */
+    final boolean workspaceSearch;
+    /**
+     * time budget of a lookup in the editor, 0 for no limit
+     */
+    final int lookupBudget;
+    private final Set<ResolutionStrategy> enabledStrategies;
+    /**
+     * indexed by the ordinal of the strategy
+     */
+    private final int[] priorities;
+
+    private ResolverOptions(boolean partialMatching, boolean deepPartialMatching, boolean asyncResolution, boolean stopAtFirstExactMatch, boolean workspaceSearch, int lookupBudget, Set<ResolutionStrategy> enabledStrategies, int[] priorities) {
+        this.partialMatching = partialMatching;
+        this.deepPartialMatching = deepPartialMatching;
+        this.asyncResolution = asyncResolution;
+        this.stopAtFirstExactMatch = stopAtFirstExactMatch;
+        this.workspaceSearch = workspaceSearch;
+        this.lookupBudget = lookupBudget;
+        this.enabledStrategies = enabledStrategies;
+        this.priorities = priorities;
+    }
+
+    /**
+     * @param pref
+     * @return the options stored in the preferences
+     */
+    static ResolverOptions read(Preferences pref) {
+        final ResolutionStrategy[] strategies = ResolutionStrategy.values();
+        Set<ResolutionStrategy> enabledStrategies = EnumSet.noneOf(ResolutionStrategy.class);
+        int[] priorities = new int[strategies.length];
+        for (ResolutionStrategy strategy : strategies) {
+            if (pref.getBoolean(ConfigPanel.strategyEnabledKey(strategy.name()), ConfigPanel.STRATEGY_ENABLED_DEFAULT)) {
+                enabledStrategies.add(strategy);
+            }
+            priorities[strategy.ordinal()] = pref.getInt(ConfigPanel.strategyPriorityKey(strategy.name()), strategy.getDefaultPriority());
+        }
+        return new ResolverOptions(
+                pref.getBoolean(ConfigPanel.PARTIAL_MATCHING, ConfigPanel.PARTIAL_MATCHING_DEFAULT),
+                pref.getBoolean(ConfigPanel.DEEP_PARTIAL_MATCHING, ConfigPanel.DEEP_PARTIAL_MATCHING_DEFAULT),
+                pref.getBoolean(ConfigPanel.ASYNC_RESOLUTION, ConfigPanel.ASYNC_RESOLUTION_DEFAULT),
+                pref.getBoolean(ConfigPanel.STOP_AT_FIRST_EXACT_MATCH, ConfigPanel.STOP_AT_FIRST_EXACT_MATCH_DEFAULT),
+                pref.getBoolean(ConfigPanel.WORKSPACE_SEARCH, ConfigPanel.WORKSPACE_SEARCH_DEFAULT),
+                pref.getInt(ConfigPanel.LOOKUP_BUDGET, ConfigPanel.LOOKUP_BUDGET_DEFAULT),
+                enabledStrategies, priorities);
+    }
+
+    /**
+     * Options independent of the preferences, f.e. for a headless scan. All
+     * strategies are enabled with their default priority.
+     *
+     * @param partialMatching
+     * @param deepPartialMatching
+     * @param stopAtFirstExactMatch
+     * @param workspaceSearch
+     * @return
+     */
+    static ResolverOptions create(boolean partialMatching, boolean deepPartialMatching, boolean stopAtFirstExactMatch, boolean workspaceSearch) {
+        final ResolutionStrategy[] strategies = ResolutionStrategy.values();
+        int[] priorities = new int[strategies.length];
+        for (ResolutionStrategy strategy : strategies) {
+            priorities[strategy.ordinal()] = strategy.getDefaultPriority();
+        }
+        return new ResolverOptions(partialMatching, deepPartialMatching, false, stopAtFirstExactMatch, workspaceSearch, 0,
+                EnumSet.allOf(ResolutionStrategy.class), priorities);
+    }
+
+    boolean isEnabled(ResolutionStrategy strategy) {
+        return enabledStrategies.contains(strategy);
+    }
+
+    /**
+     * @param strategy
+     * @return the relevance of the matches of the strategy, lower is more
+     * relevant
+     */
+    int getPriority(ResolutionStrategy strategy) {
+        return priorities[strategy.ordinal()];
+    }
+}
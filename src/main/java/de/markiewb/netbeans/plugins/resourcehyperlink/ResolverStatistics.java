@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import org.openide.util.Exceptions;
+
+/**
+ * Latencies of the lookups, of each {@link ResolutionStrategy} and of the
+ * class index queries, the sizes of the results and the statistics of the
+ * {@link ResultCache}. Recording does not allocate, see {@link Histogram}.
+ *
+ * @author markiewb
+ */
+final class ResolverStatistics implements ResolverStatisticsMBean {
+
+    static final String OBJECT_NAME = "de.markiewb.netbeans.plugins.resourcehyperlink:type=ResolverStatistics";
+    private static final ResolverStatistics INSTANCE = new ResolverStatistics();
+    private static final AtomicBoolean REGISTERED = new AtomicBoolean();
+    private static final long NANOS_PER_MICRO = 1000;
+
+    static ResolverStatistics getDefault() {
+        return INSTANCE;
+    }
+
+    /**
+     * Publishes the statistics via the platform MBean server, only once.
+     */
+    static void register() {
+        if (!REGISTERED.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(INSTANCE, ResolverStatisticsMBean.class), new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    private final Histogram lookups = new Histogram();
+    private final Histogram resultSizes = new Histogram();
+    private final Histogram classIndex = new Histogram();
+    private final Histogram[] strategies = new Histogram[ResolutionStrategy.values().length];
+
+    private ResolverStatistics() {
+        for (int i = 0; i < strategies.length; i++) {
+            strategies[i] = new Histogram();
+        }
+    }
+
+    void recordLookup(long nanos, int results) {
+        lookups.record(nanos);
+        resultSizes.record(results);
+    }
+
+    void recordStrategy(ResolutionStrategy strategy, long nanos) {
+        strategies[strategy.ordinal()].record(nanos);
+    }
+
+    void recordClassIndex(long nanos) {
+        classIndex.record(nanos);
+    }
+
+    @Override
+    public long getLookupCount() {
+        return lookups.getCount();
+    }
+
+    @Override
+    public long getLookupMeanMicros() {
+        return lookups.getMean() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getLookupP99Micros() {
+        return lookups.getPercentile(0.99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getCacheHits() {
+        return ResourceHyperlinkProvider.cache.getHits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return ResourceHyperlinkProvider.cache.getMisses();
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return ResourceHyperlinkProvider.cache.getEvictions();
+    }
+
+    @Override
+    public int getCacheSize() {
+        return ResourceHyperlinkProvider.cache.size();
+    }
+
+    @Override
+    public String[] getStrategyLatencies() {
+        final ResolutionStrategy[] values = ResolutionStrategy.values();
+        String[] result = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i].name() + ": " + strategies[i].format(NANOS_PER_MICRO, "us");
+        }
+        return result;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("lookups: ").append(lookups.format(NANOS_PER_MICRO, "us")).append('\n');
+        for (String line : getStrategyLatencies()) {
+            sb.append("  ").append(line).append('\n');
+        }
+        sb.append("class index: ").append(classIndex.format(NANOS_PER_MICRO, "us")).append('\n');
+        sb.append("result sizes: ").append(resultSizes.format(1, "")).append('\n');
+        sb.append(String.format("cache: size=%d hits=%d misses=%d evictions=%d%n", getCacheSize(), getCacheHits(), getCacheMisses(), getCacheEvictions()));
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        lookups.reset();
+        resultSizes.reset();
+        classIndex.reset();
+        for (Histogram histogram : strategies) {
+            histogram.reset();
+        }
+    }
+}
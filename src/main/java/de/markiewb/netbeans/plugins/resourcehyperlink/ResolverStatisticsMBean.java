@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+/**
+ * Statistics of the hyperlink resolution, published via JMX.
+ *
+ * @author markiewb
+ */
+public interface ResolverStatisticsMBean {
+
+    long getLookupCount();
+
+    long getLookupMeanMicros();
+
+    long getLookupP99Micros();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getCacheEvictions();
+
+    int getCacheSize();
+
+    /**
+     * @return one line per strategy
+     */
+    String[] getStrategyLatencies();
+
+    /**
+     * @return all statistics as text
+     */
+    String dump();
+
+    void reset();
+}
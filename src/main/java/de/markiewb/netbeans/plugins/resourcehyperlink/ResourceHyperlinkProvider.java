@@ -16,64 +16,48 @@
 package de.markiewb.netbeans.plugins.resourcehyperlink;
 
 import de.markiewb.netbeans.plugins.resourcehyperlink.options.ConfigPanel;
-import java.io.File;
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Calendar;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
 import java.util.EnumSet;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.prefs.PreferenceChangeEvent;
 import java.util.prefs.PreferenceChangeListener;
 import java.util.prefs.Preferences;
-import javax.lang.model.element.TypeElement;
-import javax.swing.DefaultComboBoxModel;
-import javax.swing.JComboBox;
+import javax.swing.SwingUtilities;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
-import org.netbeans.api.java.classpath.ClassPath;
-import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.editor.mimelookup.MimeRegistrations;
 import org.netbeans.api.java.project.JavaProjectConstants;
-import org.netbeans.api.java.source.ClassIndex;
-import org.netbeans.api.java.source.ClasspathInfo;
-import org.netbeans.api.java.source.ElementHandle;
-import org.netbeans.api.lexer.Token;
-import org.netbeans.api.lexer.TokenHierarchy;
-import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
-import org.netbeans.api.project.ProjectUtils;
-import org.netbeans.api.project.SourceGroup;
-import org.netbeans.api.project.Sources;
 import org.netbeans.editor.BaseDocument;
 import org.netbeans.editor.Utilities;
 import org.netbeans.lib.editor.hyperlink.spi.HyperlinkProviderExt;
 import org.netbeans.lib.editor.hyperlink.spi.HyperlinkType;
 import org.netbeans.modules.editor.NbEditorUtilities;
-import org.openide.DialogDescriptor;
-import org.openide.DialogDisplayer;
-import org.openide.NotifyDescriptor;
 import org.openide.cookies.EditCookie;
 import org.openide.cookies.OpenCookie;
 import org.openide.filesystems.FileObject;
-import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataObject;
 import org.openide.loaders.DataObjectNotFoundException;
 import org.openide.util.Exceptions;
 import org.openide.util.NbPreferences;
+import org.openide.util.RequestProcessor;
 
 /**
  * Hyperlink provider opening resources which are encoded in string literals
- * within java files.
+ * within java files, in attribute values and texts of xml files and in values
+ * of properties files (see {@link LiteralLanguage}).
  * <p>
  * For example: {@code "com/foo/Bar.java"} will be resolved in the source-roots
  * of
@@ -81,12 +65,20 @@ import org.openide.util.NbPreferences;
  * and in the Maven-Source-Roots
  * </p>
  * It also resolves FQN classnames. (since 1.3.0) It also resolved files in same
- * package but different source root. If there are multiple matches a dialog
- * will pop up and let the user choose.
+ * package but different source root. If there are multiple matches a popup
+ * will show them as they are found and let the user choose.
+ * <p>
+ * There is an instance per MIME type, but all instances share the options,
+ * the caches and the indexes of the projects.
+ * </p>
  *
  * @author markiewb
  */
-@MimeRegistration(mimeType = "text/x-java", service = HyperlinkProviderExt.class)
+@MimeRegistrations({
+    @MimeRegistration(mimeType = "text/x-java", service = HyperlinkProviderExt.class),
+    @MimeRegistration(mimeType = "text/xml", service = HyperlinkProviderExt.class),
+    @MimeRegistration(mimeType = "text/x-properties", service = HyperlinkProviderExt.class)
+})
 public class ResourceHyperlinkProvider implements HyperlinkProviderExt {
 
     /**
@@ -97,9 +89,14 @@ public class ResourceHyperlinkProvider implements HyperlinkProviderExt {
     public static final String MAVEN_TYPE_OTHER = "Resources"; //NOI18N
     public static final String MAVEN_TYPE_TEST_OTHER = "TestResources"; //NOI18N
     public static final String MAVEN_TYPE_GEN_SOURCES = "GeneratedSources"; //NOI18N
-    public static final Cache<ResultTO> cache = new Cache<ResultTO>();
-    private static final int EXPIRE_CACHE_IN_SECONDS = 10;
+    static final ResultCache cache = new ResultCache();
     private static final Logger LOG = Logger.getLogger(ResourceHyperlinkProvider.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(ResourceHyperlinkProvider.class.getName(), 1, true);
+    /**
+     * the options panel stores each key separately, so the changes are
+     * applied once after this delay
+     */
+    private static final int OPTIONS_DELAY = 100;
     
     public static void openInEditor(FileObject fileToOpen) {
         DataObject fileDO;
@@ -122,308 +119,285 @@ public class ResourceHyperlinkProvider implements HyperlinkProviderExt {
 
     }
 
-    boolean enablePartialMatches;
+    private static final BatchResolver batchResolver = new BatchResolver();
+    /**
+     * The current options, replaced as a whole when the preferences change.
+     */
+    private static volatile ResolverOptions options;
+    private static boolean initialized;
+    /**
+     * The request being resolved in the background. Only accessed in the EDT.
+     */
+    private PendingRequest pendingRequest;
 
     public ResourceHyperlinkProvider() {
-        Preferences pref = NbPreferences.forModule(ConfigPanel.class);
-        enablePartialMatches = pref.getBoolean(ConfigPanel.PARTIAL_MATCHING, ConfigPanel.PARTIAL_MATCHING_DEFAULT);
+        initialize();
+    }
+
+    /**
+     * Reads the options and starts the shared listeners, only once for all
+     * instances.
+     */
+    private static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        ResourceIndex.listenOnOpenProjects();
+        ResolverStatistics.register();
+        batchResolver.listenOnEditors();
+        final Preferences pref = NbPreferences.forModule(ConfigPanel.class);
+        options = ResolverOptions.read(pref);
+        final RequestProcessor.Task optionsTask = RP.create(new Runnable() {
+
+            @Override
+            public void run() {
+                options = ResolverOptions.read(pref);
+                //the cached results depend on the options
+                cache.clear();
+                batchResolver.invalidate();
+            }
+        });
         pref.addPreferenceChangeListener(new PreferenceChangeListener() {
 
             @Override
             public void preferenceChange(PreferenceChangeEvent evt) {
-                if (evt.getKey().equals(ConfigPanel.PARTIAL_MATCHING)) {
-                    enablePartialMatches = evt.getNode().getBoolean(ConfigPanel.PARTIAL_MATCHING, ConfigPanel.PARTIAL_MATCHING_DEFAULT);
-                }
+                optionsTask.schedule(OPTIONS_DELAY);
             }
         });
     }
 
     @Override
     public boolean isHyperlinkPoint(Document document, int offset, HyperlinkType type) {
-        updateCacheIfNecessary(document, offset);
-        if (null == cache.matches) {
+        ResultTO matches = getResult(document, offset);
+        if (null == matches) {
             return false;
         }
-        return cache.matches.isValid();
+        return matches.isValid();
     }
 
-    private ResultTO findResources(Document document, int offset) {
+    private StringLiteral findLiteral(Document document, int offset) {
         if (!(document instanceof BaseDocument)) {
-            return ResultTO.createEmpty();
+            return null;
+        }
+        final LiteralLanguage language = LiteralLanguage.of(document);
+        if (null == language) {
+            return null;
         }
 
         BaseDocument doc = (BaseDocument) document;
         JTextComponent target = Utilities.getFocusedComponent();
 
         if ((target == null) || (target.getDocument() != doc)) {
-            return ResultTO.createEmpty();
+            return null;
         }
 
         try {
-            TokenHierarchy<String> hi = TokenHierarchy.create(doc.getText(0, doc.getLength()), JavaTokenId.language());
-            TokenSequence<JavaTokenId> ts = hi.tokenSequence(JavaTokenId.language());
-
-            ts.move(offset);
-            boolean lastTokenInDocument = !ts.moveNext();
-            if (lastTokenInDocument) {
-                // end of the document
-                return ResultTO.createEmpty();
-            }
-
-            while (ts.token() == null || ts.token().id() == JavaTokenId.WHITESPACE) {
-                boolean movePrevious = ts.movePrevious();
-                if (!movePrevious) {
-                    /**
-                     * Doc from {@link ​TokenSequence#movePrevious}: false if it
-                     * was not moved because there are no more tokens in the
-                     * backward direction.
-                     */
-                    break;
-                }
-            }
-
-            Token<JavaTokenId> resourceToken = ts.offsetToken();
-            if (null == resourceToken
-                    || resourceToken.length() <= 2) {
-                return ResultTO.createEmpty();
-            }
-
-            if (resourceToken.id() == JavaTokenId.STRING_LITERAL // identified must be string
-                    && resourceToken.length() > 2) { // identifier must be longer than "" string
-                int startOffset = resourceToken.offset(hi) + 1;
-
-                final String wholeText = resourceToken.text().subSequence(1, resourceToken.length() - 1).toString();
-
-                int endOffset = startOffset + wholeText.length();
-                String linkTarget = wholeText;
-
-//                StatusDisplayer.getDefault().setStatusText("Path :" + startOffset + "/" + endOffset + "/" + offset + "//" + (offset - startOffset) + "=" + innerSelectedText);
-                Set<FileObject> findFiles = findFiles(doc, linkTarget);
-                if (findFiles.isEmpty()) {
-                    return ResultTO.createEmpty(startOffset, endOffset);
-                }
-                return ResultTO.create(startOffset, endOffset, linkTarget, findFiles);
-            }
-
+            return language.find(doc, offset);
         } catch (BadLocationException ex) {
             Exceptions.printStackTrace(ex);
         }
-        return ResultTO.createEmpty();
+        return null;
     }
 
-    private Set<FileObject> findFiles(Document doc, String path) {
-        Set<FileObject> result = new HashSet<FileObject>();
-
-        final FileObject docFO = NbEditorUtilities.getFileObject(doc);
-        Project project = null;
-        if (null != docFO) {
-            project = FileOwnerQuery.getOwner(docFO);
-        }
+    /**
+     * @param doc
+     * @param budgetMillis the time budget per lookup, 0 for no limit
+     * @return the context for resolving the literals of the document with the
+     * current options
+     */
+    static ResolutionContext createContext(Document doc, long budgetMillis) {
+        return ResolutionContext.create(doc, options, budgetMillis);
+    }
 
-        //a) exists in current dir? exact matching
-        final FileObject fileInCurrentDirectory = getMatchingFileInCurrentDirectory(doc, path);
-        if (null != fileInCurrentDirectory) {
-            result.add(fileInCurrentDirectory);
+    /**
+     * Looks up the result resolved by the batch for the whole document first,
+     * then the result cache.
+     */
+    private ResultTO getKnownResult(Document doc, StringLiteral literal, ResourceIndex index) {
+        ResultTO preResolved = batchResolver.get(doc, literal, index);
+        if (null != preResolved) {
+            return preResolved;
         }
+        return cache.get(doc, literal, index);
+    }
 
-        //b) exists in current dir? partial matching
-        if (null != docFO && null != docFO.getParent()) {
-            Collection<FileObject> partialMatches = partialMatches(path, docFO.getParent().getChildren());
-            if (null != partialMatches) {
-                result.addAll(partialMatches);
-            }
+    @Override
+    public int[] getHyperlinkSpan(Document doc, int offset, HyperlinkType type) {
+        ResultTO matches = getResult(doc, offset);
+        if (null != matches && matches.isValid()) {
+            return new int[]{matches.startOffsetInLiteral, matches.endOffsetInLiteral};
+        } else {
+            return new int[]{-1, -1};
         }
+    }
 
-        //c) fallback to search partial and exact in all source roots
-        if (null != project) {
-            result.addAll(getMatchingFilesFromSourceRoots(project, path));
+    /**
+     * Returns the result for the offset. In the asynchronous mode an unknown
+     * literal is resolved in the background and {@code null} is returned until
+     * the result is known. The editor is asked to refresh the hyperlink then.
+     *
+     * @param doc
+     * @param offset
+     * @return the result or {@code null} if it is not yet known
+     */
+    private ResultTO getResult(Document doc, int offset) {
+        final StringLiteral literal = findLiteral(doc, offset);
+        if (null == literal) {
+            return ResultTO.createEmpty();
         }
-
-        //d) fallback to exact matches in project root
-        if (null != project) {
-            FileObject projectDirectory = project.getProjectDirectory();
-            if (null != projectDirectory) {
-                //exact matches
-                FileObject fileObjectAtProjectRoot = getFileObjectInASafeManner(projectDirectory, path);
-                if (fileObjectAtProjectRoot != null && !fileObjectAtProjectRoot.isFolder()) {
-                    result.add(fileObjectAtProjectRoot);
-                }
-            }
+        final ResourceIndex index = getIndex(doc);
+        ResultTO cached = getKnownResult(doc, literal, index);
+        if (null != cached) {
+            return cached;
         }
-
-        //e) fallback to support absolute paths - exact match
-        if (new File(path).exists() && !FileUtil.toFileObject(FileUtil.normalizeFile(new File(path))).isFolder()) {
-            FileObject absolutePath = FileUtil.toFileObject(FileUtil.normalizeFile(new File(path)));
-            result.add(absolutePath);
+        final ResolverOptions current = options;
+        if (!current.asyncResolution || !SwingUtilities.isEventDispatchThread()) {
+            return resolveAndCache(doc, literal, index, current.lookupBudget);
         }
-        //f) support fqn classnames
-        result.addAll(findByClassName(docFO, path));
-
-        //g) fallback to partial matches of file in same package, but different sourceroot
-        if (null != project && null != docFO) {
-            result.addAll(getMatchingFilesFromOtherSourceRootsButWithinSamePackage(project, path, docFO));
+        if (null != pendingRequest) {
+            if (pendingRequest.isFor(doc, literal)) {
+                return null;
+            }
+            //the mouse or the caret moved to another literal
+            pendingRequest.cancel();
         }
-        return result;
+        pendingRequest = new PendingRequest(doc, literal, index);
+        pendingRequest.task = RP.post(pendingRequest);
+        return null;
     }
 
-    private List<FileObject> getMatchingFilesFromSourceRoots(Project p, String searchToken) {
-        List<FileObject> foundMatches = new ArrayList<FileObject>();
-        for (SourceGroup sourceGroup : getAllSourceGroups(p)) {
-
-            //partial matches
-            Collection<FileObject> partialMatches = partialMatches(searchToken, sourceGroup.getRootFolder().getChildren());
-            foundMatches.addAll(partialMatches);
+    private ResultTO resolveAndCache(Document doc, StringLiteral literal, ResourceIndex index, long budgetMillis) {
+        return resolveAndCache(doc, literal, index, budgetMillis, null);
+    }
 
-            //exact matches, relative path
-            FileObject fileObject = getFileObjectInASafeManner(sourceGroup.getRootFolder(), searchToken);
-            if (fileObject != null && !fileObject.isFolder()) {
-                foundMatches.add(fileObject);
+    private ResultTO resolveAndCache(Document doc, StringLiteral literal, ResourceIndex index, long budgetMillis, ResourceResolver.MatchListener listener) {
+        final long modificationStamp = ResultCache.getModificationStamp(doc);
+        final long indexModificationCount = null == index ? 0 : index.getModificationCount();
+        ResultTO result = ResourceResolver.resolve(createContext(doc, budgetMillis), literal, listener);
+        if (!ResourceResolver.isCancelled()) {
+            cache.put(doc, modificationStamp, literal, index, indexModificationCount, result);
+            LOG.fine(String.format("cacheMiss = %s  %s", literal.startOffset, literal.text));
+            if (result.incomplete && budgetMillis > 0) {
+                //f.e. a cold class index, do not serve the partial result until the next change
+                completeInBackground(doc, literal, index);
             }
         }
-        return foundMatches;
+        return result;
     }
 
-    private Collection<FileObject> partialMatches(final String searchToken, FileObject[] candidates) {
-        List<FileObject> result = new ArrayList<FileObject>();
-        final String lowerCaseToken = searchToken.toLowerCase();
-        for (FileObject fileObject : candidates) {
-            if (fileObject.isFolder()) {
-                continue;
-            }
-
-            if (enablePartialMatches) {
-                //partial matches
-                //f.e. "def" matches "abcdefg.txt" and "defcon.png"
-                boolean containsPartialMatches = fileObject.getNameExt().toLowerCase().contains(lowerCaseToken);
-                if (containsPartialMatches) {
-                    result.add(fileObject);
-                }
+    /**
+     * Resolves the literal again without a time budget and replaces the
+     * incomplete result in the cache.
+     */
+    private void completeInBackground(final Document doc, final StringLiteral literal, final ResourceIndex index) {
+        RP.post(new Runnable() {
 
-            } else {
-                //exact matching
-                boolean containsPartialMatches = fileObject.getNameExt().toLowerCase().equals(lowerCaseToken);
-                if (containsPartialMatches) {
-                    result.add(fileObject);
-                }
+            @Override
+            public void run() {
+                resolveAndCache(doc, literal, index, 0);
             }
-        }
-        return result;
+        });
     }
 
-    private FileObject getMatchingFileInCurrentDirectory(Document doc, String path) {
+    private static ResourceIndex getIndex(Document doc) {
         final FileObject docFO = NbEditorUtilities.getFileObject(doc);
         if (null == docFO) {
             return null;
         }
-        final FileObject currentDir = docFO.getParent();
-        if (null == currentDir) {
-            return null;
-        }
-        final FileObject fileObject = getFileObjectInASafeManner(currentDir, path);
-        if (null != fileObject && !fileObject.isFolder()) {
-            return fileObject;
-        } else {
-            return null;
-        }
+        return ResourceIndex.get(FileOwnerQuery.getOwner(docFO));
     }
 
-    @Override
-    public int[] getHyperlinkSpan(Document doc, int offset, HyperlinkType type) {
-        updateCacheIfNecessary(doc, offset);
-        ResultTO matches = cache.matches;
-        if (matches.isValid()) {
-            return new int[]{matches.startOffsetInLiteral, matches.endOffsetInLiteral};
-        } else {
-            return new int[]{-1, -1};
+    /**
+     * Simulates a mouse move at the current mouse position, so that the editor
+     * queries the hyperlink again. Nothing is done if the mouse has left the
+     * literal meanwhile.
+     */
+    private static void refreshHyperlink(JTextComponent component, StringLiteral literal, int modifiers) {
+        if (null == component || 0 == modifiers || !component.isShowing()) {
+            return;
         }
-    }
-
-    private void updateCacheIfNecessary(Document doc, int offset) {
-        boolean isSameRequest = false;
-        boolean timeExpired = false;
-        FileObject fileObject = NbEditorUtilities.getFileObject(doc);
-        if (null != cache.request_filePath && null != cache.request_lastUpdated) {
-            final boolean sameFile = getPathOrDefault(fileObject).equals(cache.request_filePath);
-            //if there was a previously match
-            boolean withinOffSetRange = cache.matches.startOffsetInLiteral <= offset && offset <= cache.matches.endOffsetInLiteral;
-            //if there was not a previously match            
-            final boolean sameOffset = offset == cache.request_offset;
-
-            Calendar nowMinus2Seconds = java.util.Calendar.getInstance();
-            nowMinus2Seconds.roll(Calendar.SECOND, -1 * EXPIRE_CACHE_IN_SECONDS);
-            timeExpired = cache.request_lastUpdated.before(nowMinus2Seconds.getTime());
-
-            isSameRequest = sameFile && (withinOffSetRange || sameOffset);
-
+        PointerInfo pointerInfo = MouseInfo.getPointerInfo();
+        if (null == pointerInfo) {
+            return;
         }
-        if (isSameRequest && !timeExpired) {
-
-        } else {
-            cache.request_filePath = getPathOrDefault(fileObject);
-            cache.request_offset = offset;
-
-            cache.request_lastUpdated = new Date();
-            ResultTO matches = findResources(doc, offset);
-            cache.matches = matches;
-            LOG.fine(String.format("cacheMiss = %s  %s", offset, fileObject));
+        Point point = pointerInfo.getLocation();
+        SwingUtilities.convertPointFromScreen(point, component);
+        int offset = component.viewToModel(point);
+        if (offset < literal.startOffset || literal.endOffset < offset) {
+            return;
         }
-
+        component.dispatchEvent(new MouseEvent(component, MouseEvent.MOUSE_MOVED, System.currentTimeMillis(), modifiers, point.x, point.y, 0, false));
     }
 
     @Override
-    public void performClickAction(Document doc, int position, HyperlinkType type) {
-        updateCacheIfNecessary(doc, position);
-        if (null == cache.matches) {
+    public void performClickAction(final Document doc, int position, HyperlinkType type) {
+        final StringLiteral literal = findLiteral(doc, position);
+        if (null == literal) {
             return;
         }
-        
-        ResultTO matches = cache.matches;
-        if (matches.isValid()) {
-            Collection<FileObject> foundMatches = matches.foundFiles;
-            final Project project = FileOwnerQuery.getOwner(NbEditorUtilities.getFileObject(doc));
-            FileObject fileToOpen = getSingleMatchOrAskForUserChoice(foundMatches, project);
-
-            if (fileToOpen == null) {
-//                StatusDisplayer.getDefault().setStatusText("Invalid path: " + findMatches.linkTarget);
+        final ResourceIndex index = getIndex(doc);
+        ResultTO matches = getKnownResult(doc, literal, index);
+        if (null != matches && !matches.incomplete) {
+            if (!matches.isValid()) {
+                return;
+            }
+            if (matches.foundFiles.size() == 1) {
+                openInEditor(matches.foundFiles.iterator().next());
                 return;
             }
-            openInEditor(fileToOpen);
         }
-    }
-
-    private FileObject getSingleMatchOrAskForUserChoice(Collection<FileObject> foundMatches, Project project) {
-        if (foundMatches.size() == 1) {
-            return foundMatches.iterator().next();
+        final FileObject docFO = NbEditorUtilities.getFileObject(doc);
+        final Project project = null == docFO ? null : FileOwnerQuery.getOwner(docFO);
+        final MatchChooser chooser = new MatchChooser(Utilities.getFocusedComponent(), position, null == project ? null : project.getProjectDirectory());
+        if (null != matches && !matches.incomplete) {
+            chooser.add(chooser.toItems(matches.foundFiles));
+            chooser.finish(matches.totalCount);
+            return;
         }
-        List<FileObject> indexedFilePaths = new ArrayList<FileObject>(foundMatches);
+        //the user wants to see all files now, show them as they are found
+        chooser.setTask(RP.post(new Runnable() {
 
-        if (foundMatches.size() >= 2) {
-            List<FileObjectTuple> collector = new ArrayList<FileObjectTuple>();
+            @Override
+            public void run() {
+                final ResultTO result = resolveAndCache(doc, literal, index, 0, new ResourceResolver.MatchListener() {
+
+                    @Override
+                    public void found(List<RankedMatches.Hit> hits) {
+                        final List<MatchChooser.Item> items = chooser.toItems(hits);
+                        SwingUtilities.invokeLater(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                chooser.add(items);
+                            }
+                        });
+                    }
 
-            for (FileObject fileObject : indexedFilePaths) {
-                //convert absolute path to relative regarding the project
-                String path1 = getPathOrDefault(fileObject).substring(getPathOrDefault(project.getProjectDirectory()).length());
-                collector.add(new FileObjectTuple(fileObject, path1));
-            }
-            Collections.sort(collector, new Comparator<FileObjectTuple>() {
-                @Override
-                public int compare(FileObjectTuple o1, FileObjectTuple o2) {
-                    return o1.getSecond().compareToIgnoreCase(o2.getSecond());
-                }
-            });
+                    @Override
+                    public void evicted(final List<FileObject> files) {
+                        SwingUtilities.invokeLater(new Runnable() {
 
-            DefaultComboBoxModel<FileObjectTuple> defaultComboBoxModel = new DefaultComboBoxModel<FileObjectTuple>();
-            for (FileObjectTuple item : collector) {
-                defaultComboBoxModel.addElement(item);
-            }
+                            @Override
+                            public void run() {
+                                chooser.remove(files);
+                            }
+                        });
+                    }
+                });
+                if (ResourceResolver.isCancelled()) {
+                    return;
+                }
+                SwingUtilities.invokeLater(new Runnable() {
 
-            //TODO replace with floating listbox like "Open implementations"
-            final JComboBox<FileObjectTuple> jList = new JComboBox<FileObjectTuple>(defaultComboBoxModel);
-            if (DialogDisplayer.getDefault().notify(new DialogDescriptor(jList, "Multiple files found. Please choose:")) == NotifyDescriptor.OK_OPTION) {
-                return defaultComboBoxModel.getElementAt(jList.getSelectedIndex()).getFirst();
+                    @Override
+                    public void run() {
+                        chooser.finish(result.totalCount);
+                    }
+                });
             }
-        }
-        return null;
+        }));
+        chooser.showLater();
     }
 
     @Override
@@ -433,204 +407,75 @@ public class ResourceHyperlinkProvider implements HyperlinkProviderExt {
 
     @Override
     public String getTooltipText(Document doc, int offset, HyperlinkType type) {
-        updateCacheIfNecessary(doc, offset);
-
-        ResultTO result = cache.matches;
-        if (!result.isValid()) {
-            return null;
-        }
-
-        Collection<FileObject> findMatches = result.foundFiles;
-        if (findMatches.size() < 0) {
+        ResultTO result = getResult(doc, offset);
+        if (null == result || !result.isValid()) {
             return null;
         }
-        return MessageFormat.format("<html>Open <b>{0}</b>{1,choice,0#|1#|1< ({1} matches)}", result.linkTarget, findMatches.size());
-    }
-
-    private Collection<FileObject> findByClassName(FileObject fo, String fqnClassName) {
-
-        Set<FileObject> files = new java.util.LinkedHashSet<FileObject>();
-
-        ClassPath bootCp = ClassPath.getClassPath(fo, ClassPath.BOOT);
-        ClassPath compileCp = ClassPath.getClassPath(fo, ClassPath.COMPILE);
-        ClassPath sourcePath = ClassPath.getClassPath(fo, ClassPath.SOURCE);
-        if (null == bootCp || null == compileCp || null == sourcePath) {
-            return files;
-        }
-        final ClasspathInfo info = ClasspathInfo.create(bootCp, compileCp, sourcePath);
-        int lastIndexOfDot = fqnClassName.lastIndexOf(".");
-        String simpleClassName;
-        if (lastIndexOfDot > 0) {
-            simpleClassName = fqnClassName.substring(lastIndexOfDot + 1);
-        } else {
-            simpleClassName = fqnClassName;
-        }
 
-        /**
-         * Search in own project sources AND in sources of dependencies
-         */
-        final Set<ElementHandle<TypeElement>> result = info.getClassIndex().getDeclaredTypes(simpleClassName, ClassIndex.NameKind.SIMPLE_NAME, EnumSet.of(ClassIndex.SearchScope.SOURCE, ClassIndex.SearchScope.DEPENDENCIES));
-        for (ElementHandle<TypeElement> te : result) {
-            final String qualifiedName = te.getQualifiedName();
-            if (!qualifiedName.equals(fqnClassName)) {
-                continue;
-            }
-
-            //NOTE: will not return a file for a class without sources (f.e. maven dep)
-            final FileObject file = org.netbeans.api.java.source.SourceUtils.getFile(te, info);
-//            System.out.println(String.format("file = %s from %s", file, te));
-            if (null != file) {
-                files.add(file);
-            }
-        }
-//                System.out.println("files = "+files.size() + files);
-        return files;
+        return MessageFormat.format("<html>Open <b>{0}</b>{1,choice,0#|1#|1< ({1} matches)}{2}", result.linkTarget, result.totalCount,
+                result.incomplete ? " <i>(results may be incomplete)</i>" : "");
     }
 
     /**
-     * <pre>
-     * Given
-     *      String foo="MyTest-context.xml"
-     * in
-     *      src/test/java/com/foo/MyTest.java (src/test/java = sourceRoot A)
-     * also matches
-     *      src/test/resources/com/foo/MyTest-context.xml (src/test/resources = sourceRoot B)
-     * </pre>
-     *
-     * @param p
-     * @param searchToken
-     * @param originFileObject
-     * @see
-     * https://github.com/markiewb/nb-resource-hyperlink-at-cursor/issues/10
-     * @return
+     * A literal resolved in the background. The result is published in the
+     * EDT, if the request has not been superseded meanwhile.
      */
-    private Collection<? extends FileObject> getMatchingFilesFromOtherSourceRootsButWithinSamePackage(Project p, String searchToken, FileObject originFileObject) {
-
-        List<FileObject> foundMatches = new ArrayList<FileObject>();
-        FileObject originFolder = originFileObject.getParent();
-        if (null == originFolder) {
-            return foundMatches;
-        }
-
-        String packageName = null;
-        for (SourceGroup sourceGroup : getAllSourceGroups(p)) {
-            //SourceGroup: c:/myprojects/project/src/main/java/
-            //OriginFolder: c:/myprojects/project/src/main/java/com/foo/impl
-            //Result: com/foo/impl (!=null so we found the source root)
-            final FileObject rootFolder = sourceGroup.getRootFolder();
-            if (null == rootFolder) {
-                continue;
-            }
-            String relative = FileUtil.getRelativePath(rootFolder, originFolder);
-            if (null != relative) {
-                packageName = relative;
-                break;
-            }
-        }
+    private class PendingRequest implements Runnable {
 
-        if (null != packageName) {
-            for (SourceGroup sourceGroup : getAllSourceGroups(p)) {
-                final FileObject rootFolder = sourceGroup.getRootFolder();
-                if (null == rootFolder) {
-                    continue;
-                }
-                //-> c:/myprojects/project/src/test/java/com/foo
-                final FileObject packageInSourceRoot = getFileObjectInASafeManner(rootFolder, packageName);
-                if (null == packageInSourceRoot) {
-                    continue;
-                }
-                //exists c:/myprojects/project/src/test/java/com/foo/SEARCHTOKEN ?
-                Collection<FileObject> partialMatches = partialMatches(searchToken, packageInSourceRoot.getChildren());
-                foundMatches.addAll(partialMatches);
-//            System.out.println(String.format("%s: found %s in new sourceroot %s", partialMatches, searchToken, packageInSourceRoot ));
-            }
-        }
-        return foundMatches;
-    }
+        private final Document doc;
+        private final StringLiteral literal;
+        private final ResourceIndex index;
+        private final JTextComponent component;
+        private final int modifiers;
+        private RequestProcessor.Task task;
 
-    private List<SourceGroup> getAllSourceGroups(Project p) {
-        final Sources sources = ProjectUtils.getSources(p);
-        List<SourceGroup> list = new ArrayList<SourceGroup>();
-        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_TYPE_JAVA)));
-        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_TYPE_RESOURCES)));
-        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_HINT_TEST)));
-        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_HINT_MAIN)));
-        list.addAll(Arrays.asList(sources.getSourceGroups(MAVEN_TYPE_GEN_SOURCES)));
-        list.addAll(Arrays.asList(sources.getSourceGroups(MAVEN_TYPE_OTHER)));
-        list.addAll(Arrays.asList(sources.getSourceGroups(MAVEN_TYPE_TEST_OTHER)));
-        return list;
-    }
-    
-    /**
-     * Try to catch
-     * https://github.com/markiewb/nb-resource-hyperlink-at-cursor/issues/19
-     * "java.lang.AssertionError: Need to normalize ..., when there is a colon
-     * in the string"
-     *
-     * @param parent
-     * @param relativePath
-     * @return
-     */
-    private FileObject getFileObjectInASafeManner(FileObject parent, String relativePath) {
-        if (null != parent) {
-            try {
-                FileObject result = parent.getFileObject(relativePath);
-                return result;
-            } catch (AssertionError e) {
-                return null;
-            }
+        PendingRequest(Document doc, StringLiteral literal, ResourceIndex index) {
+            this.doc = doc;
+            this.literal = literal;
+            this.index = index;
+            this.component = Utilities.getFocusedComponent();
+            //remember the hyperlink modifiers (f.e. CTRL) of the triggering event
+            AWTEvent currentEvent = EventQueue.getCurrentEvent();
+            this.modifiers = currentEvent instanceof InputEvent ? ((InputEvent) currentEvent).getModifiersEx() : 0;
         }
-        return null;
-    }
 
-    private String getPathOrDefault(FileObject fo) {
-        if (null == fo) {
-            return "";
-        }
-        final String path = fo.getPath();
-        if (null == path) {
-            return "";
+        boolean isFor(Document otherDoc, StringLiteral otherLiteral) {
+            return doc == otherDoc
+                    && literal.startOffset == otherLiteral.startOffset
+                    && literal.endOffset == otherLiteral.endOffset
+                    && literal.text.equals(otherLiteral.text);
         }
-        return path;
-    }
-    static class Cache<T> {
 
-        int request_offset;
-        Date request_lastUpdated;
-        String request_filePath;
-        T matches;
-    }
-
-    private static class FileObjectTuple extends Pair<FileObject, String> {
-
-        public FileObjectTuple(FileObject first, String second) {
-            super(first, second);
+        void cancel() {
+            task.cancel();
         }
 
         @Override
-        public String toString() {
-            return getSecond();
-        }
-    }
-
-    private static class Pair<First, Second> {
-
-        private final First first;
-        private final Second second;
-
-        private Pair(final First first, final Second second) {
-            this.first = first;
-            this.second = second;
-        }
-
-        public First getFirst() {
-            return first;
-        }
-
-        public Second getSecond() {
-            return second;
+        public void run() {
+            boolean resolved = false;
+            try {
+                resolveAndCache(doc, literal, index, options.lookupBudget);
+                resolved = !ResourceResolver.isCancelled();
+            } catch (RuntimeException ex) {
+                Exceptions.printStackTrace(ex);
+            } finally {
+                //always release the literal, otherwise it is never resolved again
+                final boolean refresh = resolved;
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if (pendingRequest != PendingRequest.this) {
+                            return;
+                        }
+                        pendingRequest = null;
+                        if (refresh) {
+                            refreshHyperlink(component, literal, modifiers);
+                        }
+                    }
+                });
+            }
         }
-
     }
 
 }
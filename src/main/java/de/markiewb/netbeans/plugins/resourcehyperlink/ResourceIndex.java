@@ -0,0 +1,1036 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.netbeans.api.project.Sources;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+import org.openide.util.WeakListeners;
+
+/**
+ * In-memory index of the file names below the source roots of a project. The
+ * index maps the lowercased names to the files and the folders to their
+ * (lowercased) children, so that lookups do not need to list folders via
+ * {@link FileObject#getChildren()}. Substrings of the names are looked up via a
+ * {@link TrigramIndex}.
+ * <p>
+ * The index is built in the background, when a project is opened, and kept up
+ * to date by a recursive {@link FileChangeListener}. As long as the index is
+ * not ready, the queries return {@code null} and the caller has to fall back to
+ * the file system.
+ * </p>
+ * <p>
+ * The names are written to a {@link PersistentIndex} after the build and after
+ * changes. After a restart the exact name lookups are answered by it at once,
+ * the source roots are walked in the background a bit later.
+ * </p>
+ *
+ * @author markiewb
+ */
+final class ResourceIndex {
+
+    private static final Logger LOG = Logger.getLogger(ResourceIndex.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(ResourceIndex.class.getName(), 1);
+    /**
+     * delay of writing the persistent index after a change
+     */
+    private static final int STORE_DELAY = 60000;
+    /**
+     * delay of the walk of the source roots, if the persistent index answers
+     * the name lookups meanwhile
+     */
+    private static final int BUILD_DELAY = 30000;
+    /**
+     * the maximum number of entries checked against a glob pattern, a
+     * pattern like {@code **}{@code /*} would check all of them otherwise
+     */
+    private static final int MAX_GLOB_CANDIDATES = 20000;
+    /**
+     * the entries are renumbered, when more than this fraction (and more than
+     * {@link #MIN_TOMBSTONES}) of them has been removed
+     */
+    private static final int TOMBSTONE_FRACTION = 4;
+    private static final int MIN_TOMBSTONES = 1024;
+    private static final Map<Project, ResourceIndex> INDEXES = new WeakHashMap<Project, ResourceIndex>();
+    private static boolean listeningOnOpenProjects;
+
+    /**
+     * Returns the index of the project. If there is none yet, it is created
+     * and built in the background. Projects, which are not open (f.e. the
+     * owner of a file opened from outside), are not indexed, as their index
+     * would never be dropped.
+     *
+     * @param p
+     * @return the index or {@code null} if the project is not open
+     */
+    static ResourceIndex get(Project p) {
+        if (null == p || !OpenProjects.getDefault().isProjectOpen(p)) {
+            return null;
+        }
+        final ResourceIndex index = getOrCreate(p);
+        if (!OpenProjects.getDefault().isProjectOpen(p)) {
+            //closed meanwhile, the close may have been handled already
+            drop(p);
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the project, also of a project which is not open.
+     *
+     * @param p
+     * @return
+     */
+    static ResourceIndex getOrCreate(Project p) {
+        ResourceIndex index;
+        synchronized (INDEXES) {
+            index = INDEXES.get(p);
+            if (null != index) {
+                return index;
+            }
+            index = new ResourceIndex();
+            INDEXES.put(p, index);
+        }
+        index.listenOnSources(p);
+        index.listenOnProjectDirectory(p.getProjectDirectory());
+        if (null != p.getProjectDirectory()) {
+            index.persistentFile = PersistentIndex.getFile(p.getProjectDirectory());
+        }
+        index.scheduleBuild(p);
+        return index;
+    }
+
+    /**
+     * Builds the indexes of the open projects and of all projects opened
+     * later. Indexes of closed projects are dropped.
+     */
+    static void listenOnOpenProjects() {
+        synchronized (INDEXES) {
+            if (listeningOnOpenProjects) {
+                return;
+            }
+            listeningOnOpenProjects = true;
+        }
+        final OpenProjects openProjects = OpenProjects.getDefault();
+        openProjects.addPropertyChangeListener(new PropertyChangeListener() {
+
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (OpenProjects.PROPERTY_OPEN_PROJECTS.equals(evt.getPropertyName())) {
+                    updateOpenProjects(openProjects.getOpenProjects());
+                }
+            }
+        });
+        updateOpenProjects(openProjects.getOpenProjects());
+    }
+
+    private static void updateOpenProjects(Project[] openProjects) {
+        Set<Project> open = new HashSet<Project>(Arrays.asList(openProjects));
+        List<ResourceIndex> closed = new ArrayList<ResourceIndex>();
+        synchronized (INDEXES) {
+            for (Iterator<Map.Entry<Project, ResourceIndex>> it = INDEXES.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Project, ResourceIndex> entry = it.next();
+                if (!open.contains(entry.getKey())) {
+                    closed.add(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+        for (ResourceIndex index : closed) {
+            index.dispose();
+        }
+        for (Project project : open) {
+            getOrCreate(project);
+        }
+    }
+
+    private static void drop(Project p) {
+        ResourceIndex index;
+        synchronized (INDEXES) {
+            index = INDEXES.remove(p);
+        }
+        if (null != index) {
+            index.dispose();
+        }
+    }
+
+    /**
+     * @return the indexes of all projects, which have been opened or asked for
+     */
+    static List<ResourceIndex> getIndexes() {
+        synchronized (INDEXES) {
+            return new ArrayList<ResourceIndex>(INDEXES.values());
+        }
+    }
+
+    private static Collection<FileObject> getRootFolders(Project p) {
+        Set<FileObject> roots = new LinkedHashSet<FileObject>();
+        for (FileObject rootFolder : SourceRoots.get(p).getRoots()) {
+            if (rootFolder.isValid()) {
+                roots.add(rootFolder);
+            }
+        }
+        //nested roots are covered by the recursive walk of their parents
+        for (Iterator<FileObject> it = roots.iterator(); it.hasNext();) {
+            FileObject root = it.next();
+            for (FileObject other : roots) {
+                if (FileUtil.isParentOf(other, root)) {
+                    it.remove();
+                    break;
+                }
+            }
+        }
+        return roots;
+    }
+
+    private final Object lock = new Object();
+    /**
+     * notified, when the index gets ready or is disposed
+     */
+    private final Object readyLock = new Object();
+    /**
+     * lowercased name with extension -&gt; files
+     */
+    private final Map<String, List<FileObject>> byName = new HashMap<String, List<FileObject>>();
+    /**
+     * folder -&gt; (child -&gt; entry)
+     */
+    private final Map<FileObject, Map<FileObject, Entry>> byFolder = new HashMap<FileObject, Map<FileObject, Entry>>();
+    /**
+     * id -&gt; entry, {@code null} for removed files
+     */
+    private final List<Entry> entries = new ArrayList<Entry>();
+    /**
+     * number of {@code null} entries
+     */
+    private int tombstones;
+    /**
+     * all folders below the roots, their timestamps are persisted
+     */
+    private final Set<FileObject> folders = new HashSet<FileObject>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    /**
+     * lowercased names of the children of the project directory
+     */
+    private final Set<String> topLevelNames = new HashSet<String>();
+    private final FileChangeListener listener = new IndexUpdater();
+    private final FileChangeListener projectDirectoryListener = new FileChangeAdapter() {
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            topLevelChanged();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            topLevelChanged();
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            topLevelChanged();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            topLevelChanged();
+        }
+
+        /**
+         * The lookups relative to the project directory are cached too.
+         */
+        private void topLevelChanged() {
+            readTopLevelNames();
+            modificationCount.incrementAndGet();
+        }
+    };
+    private final RequestProcessor.Task storeTask = RP.create(new Runnable() {
+
+        @Override
+        public void run() {
+            store();
+        }
+    });
+    private FileObject projectDirectory;
+    private Collection<FileObject> roots = new ArrayList<FileObject>();
+    private File persistentFile;
+    /**
+     * answers the name lookups until the index has been built, {@code null}
+     * if there is no valid persistent index
+     */
+    private volatile PersistentIndex persisted;
+    /**
+     * modification count of the index, when it has been written
+     */
+    private long storedModificationCount = -1;
+    private volatile boolean ready;
+    private volatile boolean disposed;
+    private final AtomicLong modificationCount = new AtomicLong();
+    /**
+     * strongly referenced, the {@link Sources} only hold a weak listener
+     */
+    private ChangeListener sourcesListener;
+
+    private ResourceIndex() {
+    }
+
+    /**
+     * Rebuilds the index, when the source roots of the project change.
+     */
+    private void listenOnSources(Project p) {
+        final Reference<Project> projectRef = new WeakReference<Project>(p);
+        final Sources sources = ProjectUtils.getSources(p);
+        sourcesListener = new ChangeListener() {
+
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                Project project = projectRef.get();
+                if (null != project && !disposed) {
+                    scheduleBuild(project);
+                }
+            }
+        };
+        sources.addChangeListener(WeakListeners.change(sourcesListener, sources));
+    }
+
+    private void listenOnProjectDirectory(FileObject directory) {
+        if (null == directory) {
+            return;
+        }
+        projectDirectory = directory;
+        directory.addFileChangeListener(projectDirectoryListener);
+    }
+
+    private void readTopLevelNames() {
+        final FileObject directory = projectDirectory;
+        if (null == directory || disposed) {
+            return;
+        }
+        Set<String> names = new HashSet<String>();
+        for (FileObject child : directory.getChildren()) {
+            names.add(child.getNameExt().toLowerCase());
+        }
+        synchronized (lock) {
+            topLevelNames.clear();
+            topLevelNames.addAll(names);
+        }
+    }
+
+    private void scheduleBuild(final Project p) {
+        RP.post(new Runnable() {
+
+            @Override
+            public void run() {
+                readTopLevelNames();
+                final Collection<FileObject> newRoots = getRootFolders(p);
+                if (loadPersisted(newRoots)) {
+                    //the walk is only needed for the partial lookups, so it does not compete with the startup
+                    RP.post(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            buildAndStore(getRootFolders(p));
+                        }
+                    }, BUILD_DELAY, Thread.MIN_PRIORITY);
+                    return;
+                }
+                buildAndStore(newRoots);
+            }
+        });
+    }
+
+    /**
+     * Answers the name lookups from the persistent index and listens on the
+     * roots, until the index has been built.
+     *
+     * @return {@code false} if there is no valid persistent index
+     */
+    private boolean loadPersisted(Collection<FileObject> newRoots) {
+        if (ready || disposed || null != persisted || null == persistentFile) {
+            return false;
+        }
+        final PersistentIndex loaded = PersistentIndex.load(persistentFile, newRoots);
+        if (null == loaded) {
+            return false;
+        }
+        synchronized (lock) {
+            roots = new ArrayList<FileObject>(newRoots);
+        }
+        for (FileObject root : newRoots) {
+            root.addRecursiveListener(listener);
+        }
+        persisted = loaded;
+        modificationCount.incrementAndGet();
+        return true;
+    }
+
+    private void buildAndStore(Collection<FileObject> newRoots) {
+        build(newRoots);
+        persisted = null;
+        store();
+    }
+
+    private void build(Collection<FileObject> newRoots) {
+        if (disposed) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Collection<FileObject> oldRoots;
+        synchronized (lock) {
+            oldRoots = roots;
+            if (ready && oldRoots.equals(new ArrayList<FileObject>(newRoots))) {
+                return;
+            }
+            setReady(false);
+            roots = new ArrayList<FileObject>(newRoots);
+            clear();
+            folders.addAll(newRoots);
+            modificationCount.incrementAndGet();
+        }
+        for (FileObject root : oldRoots) {
+            root.removeRecursiveListener(listener);
+        }
+        for (FileObject root : newRoots) {
+            root.addRecursiveListener(listener);
+            addRecursively(root);
+        }
+        setReady(true);
+        //drop the results of the lookups via the persistent index
+        modificationCount.incrementAndGet();
+        LOG.fine(String.format("indexed %s in %d ms", newRoots, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Writes the names to the persistent index, if they have been changed
+     * since the last write.
+     */
+    private void store() {
+        final long count = modificationCount.get();
+        if (!ready || disposed || null == persistentFile || count == storedModificationCount) {
+            return;
+        }
+        List<FileObject> files = new ArrayList<FileObject>();
+        List<FileObject> currentFolders;
+        Collection<FileObject> currentRoots;
+        synchronized (lock) {
+            currentRoots = roots;
+            currentFolders = new ArrayList<FileObject>(folders);
+            for (Entry entry : entries) {
+                if (null != entry) {
+                    files.add(entry.file);
+                }
+            }
+        }
+        long start = System.currentTimeMillis();
+        PersistentIndex.store(persistentFile, currentRoots, currentFolders, files);
+        storedModificationCount = count;
+        LOG.fine(String.format("stored %d names to %s in %d ms", files.size(), persistentFile, System.currentTimeMillis() - start));
+    }
+
+    private void dispose() {
+        //write the last changes, before the project is gone
+        storeTask.cancel();
+        RP.post(new Runnable() {
+
+            @Override
+            public void run() {
+                store();
+                disposeNow();
+            }
+        });
+    }
+
+    private void disposeNow() {
+        disposed = true;
+        setReady(false);
+        modificationCount.incrementAndGet();
+        Collection<FileObject> oldRoots;
+        synchronized (lock) {
+            oldRoots = roots;
+            roots = new ArrayList<FileObject>();
+            clear();
+        }
+        for (FileObject root : oldRoots) {
+            root.removeRecursiveListener(listener);
+        }
+        if (null != projectDirectory) {
+            projectDirectory.removeFileChangeListener(projectDirectoryListener);
+        }
+    }
+
+    private void clear() {
+        byName.clear();
+        byFolder.clear();
+        entries.clear();
+        tombstones = 0;
+        folders.clear();
+        trigrams.clear();
+    }
+
+    /**
+     * Finds the files directly within the folder, whose name equals the token
+     * or (if partial is set) contains the token.
+     *
+     * @param folder
+     * @param lowerCaseToken the search token in lowercase
+     * @param partial
+     * @return the matches or {@code null} if the folder is not covered by the
+     * index (yet)
+     */
+    Collection<FileObject> findInFolder(FileObject folder, String lowerCaseToken, boolean partial) {
+        if (null == folder) {
+            return null;
+        }
+        if (!ready) {
+            final PersistentIndex current = persisted;
+            if (partial || null == current || !covers(folder)) {
+                return null;
+            }
+            List<FileObject> result = new ArrayList<FileObject>();
+            for (FileObject fileObject : current.findByName(lowerCaseToken)) {
+                if (folder.equals(fileObject.getParent())) {
+                    result.add(fileObject);
+                }
+            }
+            return result;
+        }
+        List<FileObject> result = new ArrayList<FileObject>();
+        synchronized (lock) {
+            if (!isCovered(folder)) {
+                return null;
+            }
+            if (!partial) {
+                final List<FileObject> named = byName.get(lowerCaseToken);
+                if (null != named) {
+                    for (FileObject fileObject : named) {
+                        if (folder.equals(fileObject.getParent())) {
+                            result.add(fileObject);
+                        }
+                    }
+                }
+                return result;
+            }
+            final Map<FileObject, Entry> children = byFolder.get(folder);
+            if (null == children) {
+                return result;
+            }
+            //the trigrams only pay off, if they yield less candidates than the folder has children
+            final int estimate = trigrams.estimateCandidates(lowerCaseToken);
+            if (estimate >= 0 && estimate < children.size()) {
+                for (int id : trigrams.candidates(lowerCaseToken)) {
+                    Entry entry = entries.get(id);
+                    if (null != entry && folder.equals(entry.folder) && entry.name.contains(lowerCaseToken)) {
+                        result.add(entry.file);
+                    }
+                }
+                return result;
+            }
+            for (Entry child : children.values()) {
+                if (child.name.contains(lowerCaseToken)) {
+                    result.add(child.file);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Offers the files anywhere below the source roots, whose name contains
+     * the token, to the bounded sink. So only the most relevant matches are
+     * kept, regardless of their number.
+     *
+     * @param lowerCaseToken the search token in lowercase
+     * @param sink
+     * @return {@code false} if the index is not ready (yet)
+     */
+    boolean findDeep(String lowerCaseToken, RankedMatches sink) {
+        if (!ready) {
+            return false;
+        }
+        synchronized (lock) {
+            final int[] candidates = trigrams.candidates(lowerCaseToken);
+            if (null != candidates) {
+                for (int id : candidates) {
+                    Entry entry = entries.get(id);
+                    if (null != entry && entry.name.contains(lowerCaseToken)) {
+                        sink.offer(entry.file);
+                    }
+                }
+            } else {
+                //too short for the trigrams
+                for (Map.Entry<String, List<FileObject>> named : byName.entrySet()) {
+                    if (named.getKey().contains(lowerCaseToken)) {
+                        for (FileObject fileObject : named.getValue()) {
+                            sink.offer(fileObject);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the files, whose path relative to a source root or to the project
+     * directory matches the pattern. Only the names containing the
+     * {@link GlobPattern#getNameHint() hint} of the pattern are checked and at
+     * most {@link #MAX_GLOB_CANDIDATES} of them. The candidates are collected
+     * under the lock, the paths are matched outside of it.
+     *
+     * @param glob
+     * @param limit the maximum number of files returned
+     * @return the matches or {@code null} if the index is not ready (yet)
+     */
+    Collection<FileObject> findByGlob(GlobPattern glob, int limit) {
+        if (!ready) {
+            return null;
+        }
+        final String hint = glob.getNameHint();
+        List<FileObject> bases;
+        List<Entry> candidateEntries = new ArrayList<Entry>();
+        synchronized (lock) {
+            bases = new ArrayList<FileObject>(roots);
+            if (null != projectDirectory) {
+                bases.add(projectDirectory);
+            }
+            //null for a hint shorter than a trigram
+            final int[] candidates = null == hint ? null : trigrams.candidates(hint);
+            final int count = null == candidates ? entries.size() : candidates.length;
+            for (int i = 0; i < count && candidateEntries.size() < MAX_GLOB_CANDIDATES; i++) {
+                final Entry entry = entries.get(null == candidates ? i : candidates[i]);
+                if (null != entry && (null == hint || entry.name.contains(hint))) {
+                    candidateEntries.add(entry);
+                }
+            }
+        }
+        if (MAX_GLOB_CANDIDATES == candidateEntries.size()) {
+            LOG.fine(String.format("only the first %d names are checked against the pattern", MAX_GLOB_CANDIDATES));
+        }
+        List<FileObject> result = new ArrayList<FileObject>();
+        for (int i = 0; i < candidateEntries.size() && result.size() < limit; i++) {
+            if (0 == (i & 1023) && ResourceResolver.isCancelled()) {
+                break;
+            }
+            final Entry entry = candidateEntries.get(i);
+            for (FileObject base : bases) {
+                final String relativePath = FileUtil.getRelativePath(base, entry.file);
+                if (null != relativePath && glob.matches(relativePath)) {
+                    result.add(entry.file);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the files, whose path relative to a source root equals the path.
+     * If deep is set and the path is a name only, the files anywhere below
+     * the source roots, whose name contains the path, are found too.
+     *
+     * @param path
+     * @param deep
+     * @return the matches or {@code null} if the index is not ready (yet)
+     */
+    Collection<FileObject> findByPath(String path, boolean deep) {
+        final String lowerCasePath = path.toLowerCase();
+        final int nameStart = path.lastIndexOf('/') + 1;
+        if (0 == nameStart && deep) {
+            final RankedMatches sink = new RankedMatches(RankedMatches.DEFAULT_LIMIT, lowerCasePath);
+            return findDeep(lowerCasePath, sink) ? sink.toTopList() : null;
+        }
+        final String lowerCaseName = lowerCasePath.substring(nameStart);
+        if (!ready) {
+            final PersistentIndex current = persisted;
+            if (null == current) {
+                return null;
+            }
+            return filterByPath(current.findByName(lowerCaseName), current.getRoots(), path);
+        }
+        synchronized (lock) {
+            final List<FileObject> named = byName.get(lowerCaseName);
+            if (null == named) {
+                return new ArrayList<FileObject>();
+            }
+            return filterByPath(named, roots, path);
+        }
+    }
+
+    private static List<FileObject> filterByPath(Collection<FileObject> files, Collection<FileObject> roots, String path) {
+        List<FileObject> result = new ArrayList<FileObject>();
+        for (FileObject fileObject : files) {
+            for (FileObject root : roots) {
+                if (path.equals(FileUtil.getRelativePath(root, fileObject))) {
+                    result.add(fileObject);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if the index has been built, only then the name
+     * lookups below are meaningful
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Waits until the index has been built.
+     *
+     * @param timeoutMillis
+     * @return {@code true} if the index is ready, {@code false} if it has been
+     * disposed or the timeout elapsed
+     * @throws InterruptedException
+     */
+    boolean awaitReady(long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (readyLock) {
+            while (!ready && !disposed) {
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                readyLock.wait(remaining);
+            }
+            return ready;
+        }
+    }
+
+    private void setReady(boolean value) {
+        synchronized (readyLock) {
+            ready = value;
+            readyLock.notifyAll();
+        }
+    }
+
+    /**
+     * @return {@code true} if the index has been built or the names have been
+     * loaded from the persistent index, only then {@link #containsName} and
+     * {@link #findByPath} are meaningful
+     */
+    boolean canLookUpNames() {
+        return ready || null != persisted;
+    }
+
+    /**
+     * @param lowerCaseName the name with extension in lowercase
+     * @return {@code true} if there is a file with the name below the source
+     * roots
+     */
+    boolean containsName(String lowerCaseName) {
+        if (!ready) {
+            final PersistentIndex current = persisted;
+            return null == current || current.containsName(lowerCaseName);
+        }
+        synchronized (lock) {
+            return byName.containsKey(lowerCaseName);
+        }
+    }
+
+    /**
+     * Checks the trigrams of the token only, so the result may be a false
+     * positive.
+     *
+     * @param lowerCaseToken the search token in lowercase
+     * @return {@code false} if no name below the source roots contains the
+     * token
+     */
+    boolean mayContainSubstring(String lowerCaseToken) {
+        if (!ready) {
+            //the persistent index has no trigrams
+            return true;
+        }
+        synchronized (lock) {
+            final int[] candidates = trigrams.candidates(lowerCaseToken);
+            return null == candidates || candidates.length > 0;
+        }
+    }
+
+    /**
+     * @param lowerCaseName the name with extension in lowercase
+     * @return {@code true} if there is a file or folder with the name directly
+     * within the project directory
+     */
+    boolean isTopLevelName(String lowerCaseName) {
+        synchronized (lock) {
+            return topLevelNames.contains(lowerCaseName);
+        }
+    }
+
+    /**
+     * @param folder
+     * @return {@code true} if the folder is below the source roots
+     */
+    boolean covers(FileObject folder) {
+        synchronized (lock) {
+            return isCovered(folder);
+        }
+    }
+
+    /**
+     * Returns the number of files created, deleted or renamed below the source
+     * roots, since the index has been created.
+     *
+     * @return
+     */
+    long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    private boolean isCovered(FileObject folder) {
+        for (FileObject root : roots) {
+            if (root.equals(folder) || FileUtil.isParentOf(root, folder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addRecursively(FileObject folder) {
+        Enumeration<? extends FileObject> children = folder.getChildren(true);
+        while (children.hasMoreElements()) {
+            if (disposed) {
+                return;
+            }
+            add(children.nextElement());
+        }
+    }
+
+    private void add(FileObject fileObject) {
+        if (fileObject.isFolder()) {
+            synchronized (lock) {
+                folders.add(fileObject);
+            }
+            return;
+        }
+        FileObject folder = fileObject.getParent();
+        if (null == folder) {
+            return;
+        }
+        final String name = fileObject.getNameExt().toLowerCase();
+        synchronized (lock) {
+            Map<FileObject, Entry> children = byFolder.get(folder);
+            if (null == children) {
+                children = new LinkedHashMap<FileObject, Entry>();
+                byFolder.put(folder, children);
+            }
+            if (children.containsKey(fileObject)) {
+                return;
+            }
+            final Entry entry = new Entry(entries.size(), fileObject, folder, name);
+            children.put(fileObject, entry);
+            entries.add(entry);
+            trigrams.add(entry.id, name);
+            List<FileObject> named = byName.get(name);
+            if (null == named) {
+                named = new ArrayList<FileObject>(1);
+                byName.put(name, named);
+            }
+            named.add(fileObject);
+        }
+    }
+
+    private void remove(FileObject fileObject) {
+        synchronized (lock) {
+            if (fileObject.isFolder() || !fileObject.isData()) {
+                //deleted folders report neither folder nor data, so remove the whole subtree
+                for (Iterator<Map.Entry<FileObject, Map<FileObject, Entry>>> it = byFolder.entrySet().iterator(); it.hasNext();) {
+                    Map.Entry<FileObject, Map<FileObject, Entry>> folderEntry = it.next();
+                    FileObject folder = folderEntry.getKey();
+                    if (folder.equals(fileObject) || FileUtil.isParentOf(fileObject, folder)) {
+                        for (Entry child : folderEntry.getValue().values()) {
+                            removeEntry(child);
+                        }
+                        it.remove();
+                    }
+                }
+                for (Iterator<FileObject> it = folders.iterator(); it.hasNext();) {
+                    FileObject folder = it.next();
+                    if (folder.equals(fileObject) || FileUtil.isParentOf(fileObject, folder)) {
+                        it.remove();
+                    }
+                }
+            }
+            FileObject folder = fileObject.getParent();
+            Map<FileObject, Entry> children = null == folder ? null : byFolder.get(folder);
+            if (null != children) {
+                Entry old = children.remove(fileObject);
+                if (null != old) {
+                    removeEntry(old);
+                }
+            }
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * The trigrams of the entry stay, they are filtered out by the
+     * verification of the candidates, until the entries are renumbered.
+     */
+    private void removeEntry(Entry entry) {
+        entries.set(entry.id, null);
+        tombstones++;
+        List<FileObject> named = byName.get(entry.name);
+        if (null != named) {
+            named.remove(entry.file);
+            if (named.isEmpty()) {
+                byName.remove(entry.name);
+            }
+        }
+    }
+
+    /**
+     * Drops the removed entries and rebuilds the trigrams, if too many have
+     * been removed.
+     */
+    private void compactIfNeeded() {
+        if (tombstones <= MIN_TOMBSTONES || tombstones * TOMBSTONE_FRACTION <= entries.size()) {
+            return;
+        }
+        List<Entry> live = new ArrayList<Entry>(entries.size() - tombstones);
+        trigrams.clear();
+        for (Entry old : entries) {
+            if (null == old) {
+                continue;
+            }
+            final Entry entry = new Entry(live.size(), old.file, old.folder, old.name);
+            live.add(entry);
+            trigrams.add(entry.id, entry.name);
+            byFolder.get(entry.folder).put(entry.file, entry);
+        }
+        entries.clear();
+        entries.addAll(live);
+        tombstones = 0;
+    }
+
+    private static final class Entry {
+
+        private final int id;
+        private final FileObject file;
+        private final FileObject folder;
+        /**
+         * lowercased name with extension
+         */
+        private final String name;
+
+        Entry(int id, FileObject file, FileObject folder, String name) {
+            this.id = id;
+            this.file = file;
+            this.folder = folder;
+            this.name = name;
+        }
+    }
+
+    private class IndexUpdater implements FileChangeListener {
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            add(fe.getFile());
+            addRecursively(fe.getFile());
+            addToPersisted(fe.getFile());
+            changed();
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            add(fe.getFile());
+            addToPersisted(fe.getFile());
+            changed();
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            remove(fe.getFile());
+            changed();
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            final FileObject file = fe.getFile();
+            //the children of a folder keep their names, only their path changes
+            if (!file.isFolder()) {
+                remove(file);
+                add(file);
+            }
+            //the persistent index knows the old paths only
+            addToPersisted(file);
+            changed();
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fe) {
+        }
+
+        /**
+         * The persistent index answers the lookups until the index has been
+         * built, so it has to know the new files.
+         */
+        private void addToPersisted(FileObject file) {
+            final PersistentIndex current = persisted;
+            if (null != current) {
+                current.add(file);
+            }
+        }
+
+        /**
+         * Counted after the maps have been updated, so a result stamped with
+         * the new count has seen the change.
+         */
+        private void changed() {
+            modificationCount.incrementAndGet();
+            storeTask.schedule(STORE_DELAY);
+        }
+    }
+}
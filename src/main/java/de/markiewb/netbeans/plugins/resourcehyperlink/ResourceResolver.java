@@ -0,0 +1,669 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import static de.markiewb.netbeans.plugins.resourcehyperlink.ResourceHyperlinkProvider.MAVEN_TYPE_GEN_SOURCES;
+import static de.markiewb.netbeans.plugins.resourcehyperlink.ResourceHyperlinkProvider.MAVEN_TYPE_OTHER;
+import static de.markiewb.netbeans.plugins.resourcehyperlink.ResourceHyperlinkProvider.MAVEN_TYPE_TEST_OTHER;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.project.JavaProjectConstants;
+import org.netbeans.api.java.source.ClasspathInfo;
+import org.netbeans.api.java.source.ElementHandle;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.netbeans.api.project.SourceGroup;
+import org.netbeans.api.project.Sources;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Resolves a literal to files by running the {@link ResolutionStrategy
+ * strategies}. The strategies run in parallel on a bounded
+ * {@link RequestProcessor}, the results are merged in the order of the
+ * priorities of the strategies. Disabled strategies do not run at all.
+ *
+ * @author markiewb
+ */
+final class ResourceResolver {
+
+    private static final int MAX_PARALLEL_STRATEGIES = 4;
+    private static final RequestProcessor RP = new RequestProcessor(ResourceResolver.class.getName(), MAX_PARALLEL_STRATEGIES, true);
+
+    private ResourceResolver() {
+    }
+
+    /**
+     * Receives the files as they are found.
+     */
+    interface MatchListener {
+
+        /**
+         * Called in the thread of the resolution, in the order of the
+         * strategies. Each file is reported only once, when it enters the top
+         * {@link RankedMatches#DEFAULT_LIMIT} matches.
+         *
+         * @param hits the matches found since the last call
+         */
+        void found(List<RankedMatches.Hit> hits);
+
+        /**
+         * Called in the thread of the resolution, when files reported before
+         * have been dropped from the top matches by more relevant ones.
+         *
+         * @param files
+         */
+        void evicted(List<FileObject> files);
+    }
+
+    /**
+     * Finds the files matching the literal. Only the enabled strategies
+     * applicable to the {@link LiteralKind kind} of the literal are run.
+     * <p>
+     * If {@link ResolverOptions#stopAtFirstExactMatch} is set, the exact
+     * path strategies are tried one after another first. The first exact
+     * match is returned without running the other strategies.
+     * </p>
+     * <p>
+     * If {@link ResolutionContext#budgetMillis} is exceeded, the strategies
+     * still running are cancelled and the files found so far are returned.
+     * </p>
+     * <p>
+     * If {@link ResolutionContext#inCallingThread} is set, the strategies run
+     * one after another in the calling thread, so a background batch never
+     * delays the lookups of the editor.
+     * </p>
+     *
+     * @param ctx
+     * @param literal
+     * @return the {@link RankedMatches#DEFAULT_LIMIT} most relevant matches,
+     * the most relevant first
+     */
+    static List<FileObject> findFiles(final ResolutionContext ctx, final String literal) {
+        return findMatches(ctx, literal).ranked.toList();
+    }
+
+    /**
+     * Same as {@link #findFiles(ResolutionContext, String)}, but also tells
+     * whether the time budget has been exceeded.
+     *
+     * @param ctx
+     * @param literal
+     * @return
+     */
+    static ResultTO resolve(ResolutionContext ctx, StringLiteral literal) {
+        return resolve(ctx, literal, null);
+    }
+
+    /**
+     * Same as {@link #resolve(ResolutionContext, StringLiteral)}, but reports
+     * the files to the listener as soon as they have been merged.
+     *
+     * @param ctx
+     * @param literal
+     * @param listener may be {@code null}
+     * @return
+     */
+    static ResultTO resolve(ResolutionContext ctx, StringLiteral literal, MatchListener listener) {
+        final Matches matches = findMatches(ctx, literal.text, listener);
+        return ResultTO.create(literal, matches.ranked.toList(), matches.incomplete, matches.ranked.getTotalCount());
+    }
+
+    private static Matches findMatches(final ResolutionContext ctx, final String literal) {
+        return findMatches(ctx, literal, null);
+    }
+
+    private static Matches findMatches(final ResolutionContext ctx, final String literal, MatchListener listener) {
+        final long start = System.nanoTime();
+        final Matches matches = new Matches(literal, ctx.options, listener);
+        collectMatches(ctx, literal, start, matches);
+        ResolverStatistics.getDefault().recordLookup(System.nanoTime() - start, matches.ranked.getTotalCount());
+        return matches;
+    }
+
+    private static void collectMatches(final ResolutionContext ctx, final String literal, long start, Matches matches) {
+        final LiteralKind kind = LiteralKind.of(literal);
+        if (LiteralKind.NOT_A_RESOURCE == kind || !mayMatch(ctx, kind, literal)) {
+            return;
+        }
+        final String path = LiteralKind.URI == kind ? getPathOfUri(literal) : literal;
+        if (null == path) {
+            return;
+        }
+        final long deadline = ctx.budgetMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(ctx.budgetMillis) : Long.MAX_VALUE;
+
+        List<ResolutionStrategy> strategies = new ArrayList<ResolutionStrategy>();
+        for (ResolutionStrategy strategy : ResolutionStrategy.values()) {
+            if (strategy.appliesTo(kind) && ctx.options.isEnabled(strategy)) {
+                strategies.add(strategy);
+            }
+        }
+        //the most relevant first, so an exact match stops as early as possible
+        Collections.sort(strategies, new Comparator<ResolutionStrategy>() {
+
+            @Override
+            public int compare(ResolutionStrategy o1, ResolutionStrategy o2) {
+                return ctx.options.getPriority(o1) - ctx.options.getPriority(o2);
+            }
+        });
+        if (ctx.options.stopAtFirstExactMatch) {
+            for (ResolutionStrategy strategy : new ArrayList<ResolutionStrategy>(strategies)) {
+                if (!strategy.isExactPath()) {
+                    continue;
+                }
+                if (System.nanoTime() >= deadline) {
+                    matches.incomplete = true;
+                    return;
+                }
+                strategies.remove(strategy);
+                final Collection<FileObject> found = findBefore(strategy, ctx, path, deadline);
+                if (null == found) {
+                    matches.incomplete = true;
+                    return;
+                }
+                matches.add(strategy, found);
+                if (!matches.ranked.isEmpty() || isCancelled()) {
+                    return;
+                }
+            }
+        }
+        if (ctx.inCallingThread) {
+            for (ResolutionStrategy strategy : strategies) {
+                if (isCancelled()) {
+                    return;
+                }
+                if (System.nanoTime() >= deadline) {
+                    matches.incomplete = true;
+                    return;
+                }
+                matches.add(strategy, find(strategy, ctx, path));
+            }
+            return;
+        }
+
+        List<Future<Collection<FileObject>>> futures = new ArrayList<Future<Collection<FileObject>>>(strategies.size());
+        for (final ResolutionStrategy strategy : strategies) {
+            futures.add(RP.submit(new Callable<Collection<FileObject>>() {
+
+                @Override
+                public Collection<FileObject> call() throws Exception {
+                    return find(strategy, ctx, path);
+                }
+            }));
+        }
+        try {
+            //merge in the order of the strategies, not in the order of completion
+            for (int i = 0; i < futures.size(); i++) {
+                final Future<Collection<FileObject>> future = futures.get(i);
+                final ResolutionStrategy strategy = strategies.get(i);
+                try {
+                    if (matches.incomplete) {
+                        //out of time, only take what is already there
+                        if (future.isDone() && !future.isCancelled()) {
+                            matches.add(strategy, future.get());
+                        }
+                    } else if (Long.MAX_VALUE == deadline) {
+                        matches.add(strategy, future.get());
+                    } else {
+                        matches.add(strategy, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                    }
+                } catch (TimeoutException ex) {
+                    matches.incomplete = true;
+                } catch (ExecutionException ex) {
+                    Exceptions.printStackTrace(ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            //cancelled, keep the interrupted state for the caller
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<Collection<FileObject>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Runs a single strategy within the budget, a slow exact strategy (f.e.
+     * on a network mount) must not block the hover either.
+     *
+     * @return the matches or {@code null} if the deadline has passed
+     */
+    private static Collection<FileObject> findBefore(final ResolutionStrategy strategy, final ResolutionContext ctx, final String path, long deadline) {
+        if (ctx.inCallingThread || Long.MAX_VALUE == deadline) {
+            return find(strategy, ctx, path);
+        }
+        Future<Collection<FileObject>> future = RP.submit(new Callable<Collection<FileObject>>() {
+
+            @Override
+            public Collection<FileObject> call() throws Exception {
+                return find(strategy, ctx, path);
+            }
+        });
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            return null;
+        } catch (ExecutionException ex) {
+            Exceptions.printStackTrace(ex.getCause());
+            return Collections.emptyList();
+        } catch (InterruptedException ex) {
+            //cancelled, keep the interrupted state for the caller
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    private static Collection<FileObject> find(ResolutionStrategy strategy, ResolutionContext ctx, String path) {
+        final long start = System.nanoTime();
+        try {
+            return strategy.find(ctx, path);
+        } finally {
+            ResolverStatistics.getDefault().recordStrategy(strategy, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Rejects the literals, which none of the strategies can resolve, by
+     * looking up the names of the project index only. Most literals (log
+     * messages, SQL, keys) are rejected here without any access to the file
+     * system or the class index. If the index has neither been built nor
+     * been loaded from its persistent form, every literal may match.
+     * <p>
+     * Only file names and relative paths are checked, absolute paths, class
+     * names and URIs are not covered by the index. In the workspace search
+     * the indexes of all projects are checked.
+     * </p>
+     *
+     * @param ctx
+     * @param kind
+     * @param path
+     * @return {@code false} if the literal can not be resolved at all
+     */
+    static boolean mayMatch(ResolutionContext ctx, LiteralKind kind, String path) {
+        final ResourceIndex index = ctx.index;
+        if (null == index || !index.canLookUpNames()) {
+            return true;
+        }
+        if ((LiteralKind.FILE_NAME != kind && LiteralKind.RELATIVE_PATH != kind) || path.contains("..")) {
+            //may point anywhere
+            return true;
+        }
+        final String lowerCasePath = path.toLowerCase();
+        int nameStart = lowerCasePath.lastIndexOf('/') + 1;
+        if ('\\' == File.separatorChar) {
+            nameStart = Math.max(nameStart, lowerCasePath.lastIndexOf('\\') + 1);
+        }
+        final String lowerCaseName = lowerCasePath.substring(nameStart);
+        final Collection<ResourceIndex> indexes = ctx.options.workspaceSearch ? ResourceIndex.getIndexes() : Collections.singletonList(index);
+        for (ResourceIndex other : indexes) {
+            if (!other.canLookUpNames()
+                    || (ctx.options.partialMatching && other.mayContainSubstring(lowerCasePath))
+                    || other.containsName(lowerCaseName)) {
+                return true;
+            }
+        }
+        //relative to a current directory outside of the source roots
+        if (null != ctx.docFO && null != ctx.docFO.getParent() && !index.covers(ctx.docFO.getParent())) {
+            return true;
+        }
+        //relative to the project directory
+        int firstSeparator = lowerCasePath.indexOf('/');
+        if (index.isTopLevelName(firstSeparator < 0 ? lowerCasePath : lowerCasePath.substring(0, firstSeparator))) {
+            return true;
+        }
+        //within an archive on the classpath, its entry names are cached
+        return LiteralKind.RELATIVE_PATH == kind && ArchiveIndex.contains(ctx.docFO, path);
+    }
+
+    /**
+     * @param uri f.e. {@code classpath:/com/foo/bar.xml} or
+     * {@code file:/home/foo/bar.txt}
+     * @return the path relative to the source roots for {@code classpath:},
+     * the absolute path for {@code file:} or {@code null} if the URI is
+     * malformed
+     */
+    static String getPathOfUri(String uri) {
+        if (LiteralKind.startsWithIgnoreCase(uri, LiteralKind.SCHEME_CLASSPATH)) {
+            String path = uri.substring(LiteralKind.SCHEME_CLASSPATH.length());
+            while (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+            return path.isEmpty() ? null : path;
+        }
+        try {
+            return new File(new URI(uri)).getPath();
+        } catch (URISyntaxException ex) {
+            return null;
+        } catch (IllegalArgumentException ex) {
+            //f.e. "file:foo.txt" is not hierarchical
+            return null;
+        }
+    }
+
+    /**
+     * A background resolution is cancelled by interrupting its thread.
+     */
+    static boolean isCancelled() {
+        return Thread.currentThread().isInterrupted();
+    }
+
+    static Collection<FileObject> asCollection(FileObject fileObject) {
+        if (null == fileObject) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(fileObject);
+    }
+
+    static List<FileObject> getMatchingFilesFromSourceRoots(Project p, String searchToken) {
+        List<FileObject> foundMatches = new ArrayList<FileObject>();
+        for (FileObject rootFolder : SourceRoots.get(p).getRoots()) {
+            //exact matches, relative path
+            FileObject fileObject = getFileObjectInASafeManner(rootFolder, searchToken);
+            if (fileObject != null && !fileObject.isFolder()) {
+                foundMatches.add(fileObject);
+            }
+        }
+        return foundMatches;
+    }
+
+    static List<FileObject> getPartialMatchesFromSourceRoots(ResolutionContext ctx, String searchToken) {
+        List<FileObject> foundMatches = new ArrayList<FileObject>();
+        for (FileObject rootFolder : SourceRoots.get(ctx.project).getRoots()) {
+            //partial matches
+            Collection<FileObject> partialMatches = partialMatches(ctx, searchToken, rootFolder);
+            foundMatches.addAll(partialMatches);
+        }
+        return foundMatches;
+    }
+
+    /**
+     * Matches the files within the folder. The index of the project is used,
+     * if it covers the folder. Otherwise the folder is listed.
+     */
+    static Collection<FileObject> partialMatches(ResolutionContext ctx, final String searchToken, FileObject folder) {
+        if (null != ctx.index) {
+            Collection<FileObject> indexed = ctx.index.findInFolder(folder, searchToken.toLowerCase(), ctx.options.partialMatching);
+            if (null != indexed) {
+                return indexed;
+            }
+        }
+        return partialMatches(searchToken, folder.getChildren(), ctx.options.partialMatching);
+    }
+
+    private static Collection<FileObject> partialMatches(final String searchToken, FileObject[] candidates, boolean enablePartialMatches) {
+        List<FileObject> result = new ArrayList<FileObject>();
+        final String lowerCaseToken = searchToken.toLowerCase();
+        for (FileObject fileObject : candidates) {
+            if (fileObject.isFolder()) {
+                continue;
+            }
+
+            if (enablePartialMatches) {
+                //partial matches
+                //f.e. "def" matches "abcdefg.txt" and "defcon.png"
+                boolean containsPartialMatches = fileObject.getNameExt().toLowerCase().contains(lowerCaseToken);
+                if (containsPartialMatches) {
+                    result.add(fileObject);
+                }
+
+            } else {
+                //exact matching
+                boolean containsPartialMatches = fileObject.getNameExt().toLowerCase().equals(lowerCaseToken);
+                if (containsPartialMatches) {
+                    result.add(fileObject);
+                }
+            }
+        }
+        return result;
+    }
+
+    static FileObject getMatchingFileInCurrentDirectory(FileObject docFO, String path) {
+        if (null == docFO) {
+            return null;
+        }
+        final FileObject currentDir = docFO.getParent();
+        if (null == currentDir) {
+            return null;
+        }
+        final FileObject fileObject = getFileObjectInASafeManner(currentDir, path);
+        if (null != fileObject && !fileObject.isFolder()) {
+            return fileObject;
+        } else {
+            return null;
+        }
+    }
+
+    static Collection<FileObject> findByClassName(FileObject fo, String fqnClassName) {
+
+        Set<FileObject> files = new java.util.LinkedHashSet<FileObject>();
+        if (!isQualifiedJavaName(fqnClassName)) {
+            //f.e. "Hello world" or "foo/bar.txt" can never be a classname
+            return files;
+        }
+
+        final ClasspathInfo info = ClasspathInfoCache.get(fo);
+        if (null == info) {
+            return files;
+        }
+
+        /**
+         * Search in own project sources AND in sources of dependencies. The
+         * handle is created directly from the binary name, so there is no scan
+         * of all types with the same simple name. For "a.b.C.D" the binary
+         * names "a.b.C.D", "a.b.C$D", "a.b$C$D"... are tried, to support
+         * nested classes written with a dot. "a.b.C$D" is used as it is.
+         */
+        String binaryName = fqnClassName;
+        int lastIndexOfDot = binaryName.length();
+        do {
+            if (isCancelled()) {
+                break;
+            }
+            final ElementHandle<TypeElement> te = ElementHandle.createTypeElementHandle(ElementKind.CLASS, binaryName);
+            //NOTE: will not return a file for a class without sources (f.e. maven dep)
+            final long start = System.nanoTime();
+            final FileObject file = org.netbeans.api.java.source.SourceUtils.getFile(te, info);
+            ResolverStatistics.getDefault().recordClassIndex(System.nanoTime() - start);
+            if (null != file) {
+                files.add(file);
+                break;
+            }
+            lastIndexOfDot = binaryName.lastIndexOf('.', lastIndexOfDot - 1);
+            if (lastIndexOfDot > 0) {
+                binaryName = binaryName.substring(0, lastIndexOfDot) + '$' + binaryName.substring(lastIndexOfDot + 1);
+            }
+        } while (lastIndexOfDot > 0);
+        return files;
+    }
+
+    /**
+     * Checks whether the text is a (qualified) java name like
+     * {@code com.foo.Bar}.
+     *
+     * @param text
+     * @return
+     */
+    static boolean isQualifiedJavaName(CharSequence text) {
+        final int length = text.length();
+        if (0 == length) {
+            return false;
+        }
+        boolean segmentStart = true;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (segmentStart) {
+                if (!Character.isJavaIdentifierStart(c)) {
+                    return false;
+                }
+                segmentStart = false;
+            } else if ('.' == c) {
+                segmentStart = true;
+            } else if (!Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+        }
+        //no trailing dot
+        return !segmentStart;
+    }
+
+    /**
+     * <pre>
+     * Given
+     *      String foo="MyTest-context.xml"
+     * in
+     *      src/test/java/com/foo/MyTest.java (src/test/java = sourceRoot A)
+     * also matches
+     *      src/test/resources/com/foo/MyTest-context.xml (src/test/resources = sourceRoot B)
+     * </pre>
+     *
+     * @param ctx
+     * @param searchToken
+     * @param originFileObject
+     * @see
+     * https://github.com/markiewb/nb-resource-hyperlink-at-cursor/issues/10
+     * @return
+     */
+    static Collection<FileObject> getMatchingFilesFromOtherSourceRootsButWithinSamePackage(ResolutionContext ctx, String searchToken, FileObject originFileObject) {
+
+        List<FileObject> foundMatches = new ArrayList<FileObject>();
+        FileObject originFolder = originFileObject.getParent();
+        if (null == originFolder) {
+            return foundMatches;
+        }
+
+        final SourceRoots sourceRoots = SourceRoots.get(ctx.project);
+        //OriginFolder: c:/myprojects/project/src/main/java/com/foo/impl
+        //Result: com/foo/impl (!=null so we found the source root)
+        String packageName = sourceRoots.getPackageName(originFolder);
+
+        if (null != packageName) {
+            for (FileObject rootFolder : sourceRoots.getRoots()) {
+                //-> c:/myprojects/project/src/test/java/com/foo
+                final FileObject packageInSourceRoot = getFileObjectInASafeManner(rootFolder, packageName);
+                if (null == packageInSourceRoot) {
+                    continue;
+                }
+                //exists c:/myprojects/project/src/test/java/com/foo/SEARCHTOKEN ?
+                Collection<FileObject> partialMatches = partialMatches(ctx, searchToken, packageInSourceRoot);
+                foundMatches.addAll(partialMatches);
+            }
+        }
+        return foundMatches;
+    }
+
+    static List<SourceGroup> getAllSourceGroups(Project p) {
+        final Sources sources = ProjectUtils.getSources(p);
+        List<SourceGroup> list = new ArrayList<SourceGroup>();
+        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_TYPE_JAVA)));
+        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_TYPE_RESOURCES)));
+        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_HINT_TEST)));
+        list.addAll(Arrays.asList(sources.getSourceGroups(JavaProjectConstants.SOURCES_HINT_MAIN)));
+        list.addAll(Arrays.asList(sources.getSourceGroups(MAVEN_TYPE_GEN_SOURCES)));
+        list.addAll(Arrays.asList(sources.getSourceGroups(MAVEN_TYPE_OTHER)));
+        list.addAll(Arrays.asList(sources.getSourceGroups(MAVEN_TYPE_TEST_OTHER)));
+        return list;
+    }
+
+    /**
+     * Try to catch
+     * https://github.com/markiewb/nb-resource-hyperlink-at-cursor/issues/19
+     * "java.lang.AssertionError: Need to normalize ..., when there is a colon
+     * in the string"
+     *
+     * @param parent
+     * @param relativePath
+     * @return
+     */
+    static FileObject getFileObjectInASafeManner(FileObject parent, String relativePath) {
+        if (null != parent) {
+            try {
+                FileObject result = parent.getFileObject(relativePath);
+                return result;
+            } catch (AssertionError e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static final class Matches {
+
+        private final RankedMatches ranked;
+        private final ResolverOptions options;
+        private final MatchListener listener;
+        /**
+         * the time budget has been exceeded
+         */
+        private boolean incomplete;
+
+        Matches(String literal, ResolverOptions options, MatchListener listener) {
+            this.ranked = new RankedMatches(RankedMatches.DEFAULT_LIMIT, literal, null != listener);
+            this.options = options;
+            this.listener = listener;
+        }
+
+        void add(ResolutionStrategy strategy, Collection<FileObject> found) {
+            List<RankedMatches.Hit> added = new ArrayList<RankedMatches.Hit>();
+            final int priority = options.getPriority(strategy);
+            for (FileObject fileObject : found) {
+                final RankedMatches.Hit hit = ranked.add(fileObject, priority);
+                if (null != hit) {
+                    added.add(hit);
+                }
+            }
+            if (found instanceof RankedMatches.TopList) {
+                //the bounded scan of the strategy dropped them already
+                ranked.addOmitted(((RankedMatches.TopList) found).getOmittedCount());
+            }
+            if (null == listener) {
+                return;
+            }
+            //the files added and dropped within this call are not reported at all
+            List<FileObject> evicted = new ArrayList<FileObject>(ranked.drainEvicted());
+            for (Iterator<RankedMatches.Hit> it = added.iterator(); it.hasNext();) {
+                if (evicted.remove(it.next().file)) {
+                    it.remove();
+                }
+            }
+            if (!evicted.isEmpty()) {
+                listener.evicted(evicted);
+            }
+            if (!added.isEmpty()) {
+                listener.found(added);
+            }
+        }
+    }
+}
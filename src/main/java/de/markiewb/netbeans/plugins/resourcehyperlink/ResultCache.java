@@ -0,0 +1,245 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+
+/**
+ * Bounded LRU cache of the resolved literals. An entry is keyed by the
+ * document, its modification stamp and the span of the literal. So any edit of
+ * the document invalidates its entries. Changes of the files within the
+ * project (create, delete, rename) invalidate the entries via the modification
+ * count of the {@link ResourceIndex} of the project.
+ * <p>
+ * The cache is safe to be used from multiple threads.
+ * </p>
+ *
+ * @author markiewb
+ */
+final class ResultCache {
+
+    static final int MAX_ENTRIES = 256;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+
+    ResultCache() {
+        this(MAX_ENTRIES);
+    }
+
+    ResultCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ResultCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param doc
+     * @param literal
+     * @param index the index of the owning project, may be {@code null}
+     * @return the cached result or {@code null}
+     */
+    ResultTO get(Document doc, StringLiteral literal, ResourceIndex index) {
+        final Key key = new Key(doc, getModificationStamp(doc), literal);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (null != entry && !entry.isUpToDate(index)) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (null == entry) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.result;
+    }
+
+    /**
+     * @param doc
+     * @param modificationStamp the stamp of the document before resolving
+     * @param literal
+     * @param index the index of the owning project, may be {@code null}
+     * @param indexModificationCount the modification count of the index
+     * before resolving, so that changes while resolving invalidate the result
+     * @param result
+     */
+    void put(Document doc, long modificationStamp, StringLiteral literal, ResourceIndex index, long indexModificationCount, ResultTO result) {
+        if (modificationStamp != getModificationStamp(doc)) {
+            //the document has been edited while resolving
+            return;
+        }
+        final Key key = new Key(doc, modificationStamp, literal);
+        final Entry entry = new Entry(result, index, indexModificationCount);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the modification stamp of the document. It is increased on each
+     * insert or remove.
+     *
+     * @param doc
+     * @return
+     */
+    static long getModificationStamp(Document doc) {
+        return ModificationStamp.get(doc).stamp;
+    }
+
+    private static final class Entry {
+
+        private final ResultTO result;
+        private final ResourceIndex index;
+        private final long indexModificationCount;
+
+        Entry(ResultTO result, ResourceIndex index, long indexModificationCount) {
+            this.result = result;
+            this.index = index;
+            this.indexModificationCount = indexModificationCount;
+        }
+
+        boolean isUpToDate(ResourceIndex currentIndex) {
+            if (currentIndex != index) {
+                return false;
+            }
+            return null == index || index.getModificationCount() == indexModificationCount;
+        }
+    }
+
+    private static final class Key {
+
+        private final WeakReference<Document> doc;
+        private final int docHash;
+        private final long modificationStamp;
+        private final int startOffset;
+        private final int endOffset;
+
+        Key(Document doc, long modificationStamp, StringLiteral literal) {
+            this.doc = new WeakReference<Document>(doc);
+            this.docHash = System.identityHashCode(doc);
+            this.modificationStamp = modificationStamp;
+            this.startOffset = literal.startOffset;
+            this.endOffset = literal.endOffset;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = docHash;
+            hash = 31 * hash + (int) (modificationStamp ^ (modificationStamp >>> 32));
+            hash = 31 * hash + startOffset;
+            hash = 31 * hash + endOffset;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            final Document document = doc.get();
+            return null != document
+                    && document == other.doc.get()
+                    && modificationStamp == other.modificationStamp
+                    && startOffset == other.startOffset
+                    && endOffset == other.endOffset;
+        }
+    }
+
+    /**
+     * Counts the modifications of a document. It is stored as a property of
+     * the document.
+     */
+    private static final class ModificationStamp implements DocumentListener {
+
+        private volatile long stamp;
+
+        static ModificationStamp get(Document doc) {
+            synchronized (ModificationStamp.class) {
+                Object property = doc.getProperty(ModificationStamp.class);
+                if (property instanceof ModificationStamp) {
+                    return (ModificationStamp) property;
+                }
+                ModificationStamp modificationStamp = new ModificationStamp();
+                doc.putProperty(ModificationStamp.class, modificationStamp);
+                doc.addDocumentListener(modificationStamp);
+                return modificationStamp;
+            }
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            stamp++;
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            stamp++;
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+        }
+    }
+}
@@ -35,16 +35,39 @@ class ResultTO {
     static ResultTO create(int startOffset, int endOffset, String linkTarget, Collection<FileObject> foundFiles) {
         return new ResultTO(startOffset, endOffset, linkTarget, foundFiles);
     }
+    static ResultTO create(StringLiteral literal, Collection<FileObject> foundFiles) {
+        return create(literal, foundFiles, false);
+    }
+    static ResultTO create(StringLiteral literal, Collection<FileObject> foundFiles, boolean incomplete) {
+        return create(literal, foundFiles, incomplete, foundFiles.size());
+    }
+    static ResultTO create(StringLiteral literal, Collection<FileObject> foundFiles, boolean incomplete, int totalCount) {
+        final ResultTO result = foundFiles.isEmpty()
+                ? createEmpty(literal.startOffset, literal.endOffset)
+                : create(literal.startOffset, literal.endOffset, literal.text, foundFiles);
+        result.incomplete = incomplete;
+        result.totalCount = foundFiles.isEmpty() ? 0 : totalCount;
+        return result;
+    }
     int startOffsetInLiteral;
     int endOffsetInLiteral;
     String linkTarget;
 
     Collection<FileObject> foundFiles;
+    /**
+     * the time budget of the lookup has been exceeded, there may be more files
+     */
+    boolean incomplete;
+    /**
+     * the number of all matches, only the most relevant are in foundFiles
+     */
+    int totalCount;
     ResultTO(int startOffset, int endOffset, String linkTarget, Collection<FileObject> foundFiles) {
         this.startOffsetInLiteral = startOffset;
         this.endOffsetInLiteral = endOffset;
         this.linkTarget = linkTarget;
         this.foundFiles = foundFiles;
+        this.totalCount = foundFiles.size();
     }
 
     boolean isValid() {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.awt.StatusDisplayer;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Runs the {@link LiteralScanner} on the selected project and shows the
+ * unresolved and ambiguous literals.
+ *
+ * @author markiewb
+ */
+@ActionID(category = "Project", id = "de.markiewb.netbeans.plugins.resourcehyperlink.ScanLiteralsAction")
+@ActionRegistration(displayName = "#CTL_ScanLiteralsAction")
+@ActionReference(path = "Projects/Actions", position = 1850)
+@Messages({
+    "CTL_ScanLiteralsAction=Find unresolved resource literals",
+    "# {0} - project name",
+    "MSG_ScanLiteralsAction_running=Scanning the resource literals of {0}..."
+})
+public final class ScanLiteralsAction implements ActionListener {
+
+    private static final Logger LOG = Logger.getLogger(ScanLiteralsAction.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(ScanLiteralsAction.class.getName());
+    private final Project context;
+
+    public ScanLiteralsAction(Project context) {
+        this.context = context;
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        StatusDisplayer.getDefault().setStatusText(Bundle.MSG_ScanLiteralsAction_running(ProjectUtils.getInformation(context).getDisplayName()));
+        RP.post(new Runnable() {
+
+            @Override
+            public void run() {
+                final String report;
+                try {
+                    report = LiteralScanner.scan(context).format();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                LOG.fine(report);
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        StatusDisplayer.getDefault().setStatusText("");
+                        ReportDialog.show(report);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ProjectUtils;
+import org.netbeans.api.project.SourceGroup;
+import org.netbeans.api.project.Sources;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.WeakListeners;
+
+/**
+ * Snapshot of the de-duplicated root folders of all source groups of a
+ * project (see {@link ResourceResolver#getAllSourceGroups(Project)}). The
+ * snapshot and its cached package names are dropped, when the
+ * {@link Sources} of the project change.
+ *
+ * @author markiewb
+ */
+final class SourceRoots {
+
+    private static final Map<Project, Holder> HOLDERS = new WeakHashMap<Project, Holder>();
+    private static final String NO_PACKAGE = new String();
+
+    /**
+     * @param p
+     * @return the current snapshot of the source roots of the project
+     */
+    static SourceRoots get(Project p) {
+        Holder holder;
+        synchronized (HOLDERS) {
+            holder = HOLDERS.get(p);
+            if (null == holder) {
+                holder = new Holder(ProjectUtils.getSources(p));
+                HOLDERS.put(p, holder);
+            }
+        }
+        return holder.get(p);
+    }
+
+    private final List<FileObject> roots;
+    private final Set<FileObject> rootSet;
+    /**
+     * folder -&gt; package name relative to its source root, filled lazily
+     */
+    private final Map<FileObject, String> packageNames = new ConcurrentHashMap<FileObject, String>();
+
+    private SourceRoots(List<FileObject> roots) {
+        this.roots = Collections.unmodifiableList(roots);
+        this.rootSet = new HashSet<FileObject>(roots);
+    }
+
+    /**
+     * @return the root folders, each root only once
+     */
+    List<FileObject> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Returns the path of the folder relative to the source root owning it.
+     * <pre>
+     * SourceGroup: c:/myprojects/project/src/main/java/
+     * Folder: c:/myprojects/project/src/main/java/com/foo/impl
+     * Result: com/foo/impl
+     * </pre>
+     *
+     * @param folder
+     * @return the package name or {@code null} if the folder is not within a
+     * source root
+     */
+    String getPackageName(FileObject folder) {
+        String packageName = packageNames.get(folder);
+        if (null == packageName) {
+            packageName = NO_PACKAGE;
+            for (FileObject parent = folder; null != parent; parent = parent.getParent()) {
+                if (rootSet.contains(parent)) {
+                    packageName = FileUtil.getRelativePath(parent, folder);
+                    break;
+                }
+            }
+            packageNames.put(folder, packageName);
+        }
+        return NO_PACKAGE == packageName ? null : packageName;
+    }
+
+    private static final class Holder implements ChangeListener {
+
+        private volatile SourceRoots snapshot;
+        private volatile int changes;
+
+        Holder(Sources sources) {
+            sources.addChangeListener(WeakListeners.change(this, sources));
+        }
+
+        SourceRoots get(Project p) {
+            SourceRoots current = snapshot;
+            if (null == current) {
+                final int changesBefore = changes;
+                Set<FileObject> roots = new LinkedHashSet<FileObject>();
+                for (SourceGroup sourceGroup : ResourceResolver.getAllSourceGroups(p)) {
+                    final FileObject rootFolder = sourceGroup.getRootFolder();
+                    if (null != rootFolder) {
+                        roots.add(rootFolder);
+                    }
+                }
+                current = new SourceRoots(new ArrayList<FileObject>(roots));
+                if (changesBefore == changes) {
+                    snapshot = current;
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            changes++;
+            final SourceRoots old = snapshot;
+            snapshot = null;
+            if (null != old) {
+                //still referenced by running lookups
+                old.packageNames.clear();
+            }
+        }
+    }
+}
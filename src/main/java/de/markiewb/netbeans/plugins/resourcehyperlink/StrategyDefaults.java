@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exposes the names and default priorities of the {@link ResolutionStrategy
+ * strategies} to the options panel, the strategies themselves stay internal.
+ *
+ * @author markiewb
+ */
+public final class StrategyDefaults {
+
+    private StrategyDefaults() {
+    }
+
+    /**
+     * @return name of the strategy -&gt; default priority, in the order of
+     * the strategies
+     */
+    public static Map<String, Integer> getDefaultPriorities() {
+        Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+        for (ResolutionStrategy strategy : ResolutionStrategy.values()) {
+            result.put(strategy.name(), strategy.getDefaultPriority());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.netbeans.api.java.lexer.JavaTokenId;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.editor.BaseDocument;
+
+/**
+ * The content of a java string literal (without the quotes) and its offsets
+ * within the document.
+ *
+ * @author markiewb
+ */
+class StringLiteral {
+
+    final int startOffset;
+    final int endOffset;
+    final String text;
+
+    StringLiteral(int startOffset, int endOffset, String text) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.text = text;
+    }
+
+    /**
+     * Finds the string literal at the given offset. The incremental token
+     * hierarchy of the editor is used, so only the tokens around the offset
+     * are visited. Only if the document has no live java token hierarchy the
+     * whole text is copied and lexed.
+     *
+     * @param doc
+     * @param offset
+     * @return the literal or {@code null} if there is no string literal at the
+     * offset
+     * @throws BadLocationException
+     */
+    static StringLiteral find(final BaseDocument doc, final int offset) throws BadLocationException {
+        final StringLiteral[] result = new StringLiteral[1];
+        final boolean[] liveHierarchy = new boolean[1];
+        doc.render(new Runnable() {
+
+            @Override
+            public void run() {
+                TokenHierarchy<Document> hi = TokenHierarchy.get((Document) doc);
+                if (null == hi || !hi.isActive()) {
+                    return;
+                }
+                TokenSequence<JavaTokenId> ts = hi.tokenSequence(JavaTokenId.language());
+                if (null == ts) {
+                    return;
+                }
+                liveHierarchy[0] = true;
+                result[0] = find(ts, offset);
+            }
+        });
+        if (liveHierarchy[0]) {
+            return result[0];
+        }
+
+        //fallback for documents without a live hierarchy
+        TokenHierarchy<String> hi = TokenHierarchy.create(doc.getText(0, doc.getLength()), JavaTokenId.language());
+        return find(hi.tokenSequence(JavaTokenId.language()), offset);
+    }
+
+    /**
+     * Finds all string literals of the document. Only the live token hierarchy
+     * of the editor is used.
+     *
+     * @param doc
+     * @return the literals in the order of the document, empty if the
+     * document has no live java token hierarchy
+     */
+    static List<StringLiteral> findAll(final Document doc) {
+        final List<StringLiteral> result = new ArrayList<StringLiteral>();
+        doc.render(new Runnable() {
+
+            @Override
+            public void run() {
+                TokenHierarchy<Document> hi = TokenHierarchy.get(doc);
+                if (null == hi || !hi.isActive()) {
+                    return;
+                }
+                TokenSequence<JavaTokenId> ts = hi.tokenSequence(JavaTokenId.language());
+                if (null == ts) {
+                    return;
+                }
+                result.addAll(findAll(ts));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Finds all string literals of a java source, which is not opened in an
+     * editor.
+     *
+     * @param text the content of a java file
+     * @return the literals in the order of the text
+     */
+    static List<StringLiteral> findAll(CharSequence text) {
+        return findAll(TokenHierarchy.create(text, JavaTokenId.language()).tokenSequence(JavaTokenId.language()));
+    }
+
+    private static List<StringLiteral> findAll(TokenSequence<JavaTokenId> ts) {
+        final List<StringLiteral> result = new ArrayList<StringLiteral>();
+        ts.moveStart();
+        while (ts.moveNext()) {
+            Token<JavaTokenId> token = ts.token();
+            if (token.id() == JavaTokenId.STRING_LITERAL && token.length() > 2) {
+                int startOffset = ts.offset() + 1;
+                final String text = token.text().subSequence(1, token.length() - 1).toString();
+                result.add(new StringLiteral(startOffset, startOffset + text.length(), text));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Moves the token sequence to the offset and returns the string literal
+     * found there. Must be called under the read lock of the document, if the
+     * sequence belongs to a document.
+     */
+    static StringLiteral find(TokenSequence<JavaTokenId> ts, int offset) {
+        if (null == ts) {
+            return null;
+        }
+        ts.move(offset);
+        boolean lastTokenInDocument = !ts.moveNext();
+        if (lastTokenInDocument) {
+            // end of the document
+            return null;
+        }
+
+        while (ts.token() == null || ts.token().id() == JavaTokenId.WHITESPACE) {
+            boolean movePrevious = ts.movePrevious();
+            if (!movePrevious) {
+                /**
+                 * Doc from {@link ​TokenSequence#movePrevious}: false if it was
+                 * not moved because there are no more tokens in the backward
+                 * direction.
+                 */
+                break;
+            }
+        }
+
+        Token<JavaTokenId> resourceToken = ts.token();
+        if (null == resourceToken
+                || resourceToken.id() != JavaTokenId.STRING_LITERAL // identified must be string
+                || resourceToken.length() <= 2) { // identifier must be longer than "" string
+            return null;
+        }
+        int startOffset = ts.offset() + 1;
+        //copy the text, the token text of a live hierarchy is only a view into the document
+        final String wholeText = resourceToken.text().subSequence(1, resourceToken.length() - 1).toString();
+        return new StringLiteral(startOffset, startOffset + wholeText.length(), wholeText);
+    }
+}
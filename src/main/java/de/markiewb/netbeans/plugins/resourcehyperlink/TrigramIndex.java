@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps each trigram (three consecutive chars) of a name to the ids of the
+ * names containing it. A name contains a search token only if it contains all
+ * trigrams of the token, so intersecting the posting lists of the trigrams of
+ * the token yields the candidates for a substring search.
+ * <p>
+ * The ids have to be added in ascending order. The index is not thread-safe.
+ * </p>
+ *
+ * @author markiewb
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+    private static final int[] NO_IDS = new int[0];
+    private final Map<Long, IntList> postings = new HashMap<Long, IntList>();
+
+    void add(int id, String name) {
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            final Long key = key(name, i);
+            IntList ids = postings.get(key);
+            if (null == ids) {
+                ids = new IntList();
+                postings.put(key, ids);
+            }
+            //a trigram may occur several times within a name
+            if (ids.size == 0 || ids.values[ids.size - 1] != id) {
+                ids.add(id);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * An upper bound of the number of {@link #candidates(String) candidates},
+     * without intersecting the posting lists.
+     *
+     * @param token
+     * @return the size of the shortest posting list of the trigrams of the
+     * token or -1, if the token is too short to be looked up
+     */
+    int estimateCandidates(String token) {
+        final int count = token.length() - GRAM + 1;
+        if (count < 1) {
+            return -1;
+        }
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            final IntList ids = postings.get(key(token, i));
+            if (null == ids) {
+                return 0;
+            }
+            min = Math.min(min, ids.size);
+        }
+        return min;
+    }
+
+    /**
+     * Returns the ids of the names, which contain all trigrams of the token.
+     * The caller has to verify the candidates.
+     *
+     * @param token
+     * @return the ascending ids or {@code null}, if the token is too short to
+     * be looked up
+     */
+    int[] candidates(String token) {
+        final int count = token.length() - GRAM + 1;
+        if (count < 1) {
+            return null;
+        }
+        IntList[] lists = new IntList[count];
+        for (int i = 0; i < count; i++) {
+            lists[i] = postings.get(key(token, i));
+            if (null == lists[i]) {
+                return NO_IDS;
+            }
+        }
+        //start with the shortest posting list
+        Arrays.sort(lists, new Comparator<IntList>() {
+
+            @Override
+            public int compare(IntList o1, IntList o2) {
+                return o1.size < o2.size ? -1 : (o1.size == o2.size ? 0 : 1);
+            }
+        });
+        int[] result = Arrays.copyOf(lists[0].values, lists[0].size);
+        int size = result.length;
+        for (int l = 1; l < lists.length && size > 0; l++) {
+            final IntList other = lists[l];
+            if (other == lists[l - 1]) {
+                //same trigram repeated in the token
+                continue;
+            }
+            int retained = 0;
+            for (int i = 0; i < size; i++) {
+                if (Arrays.binarySearch(other.values, 0, other.size, result[i]) >= 0) {
+                    result[retained++] = result[i];
+                }
+            }
+            size = retained;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static Long key(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Searches the indexes of all other projects (the shards of the workspace) in
+ * parallel, for background work one after another. The indexes are the ones of {@link ResourceIndex}, so they are
+ * built once, shared by all editors and dropped, when their project is
+ * closed. Shards not built yet are skipped.
+ *
+ * @author markiewb
+ */
+final class WorkspaceSearch {
+
+    private static final int MAX_PARALLEL_SHARDS = 4;
+    private static final RequestProcessor RP = new RequestProcessor(WorkspaceSearch.class.getName(), MAX_PARALLEL_SHARDS, true);
+
+    private WorkspaceSearch() {
+    }
+
+    /**
+     * @param ctx
+     * @param path a relative path or a file name
+     * @return the matches in the other projects, sorted by path
+     */
+    static Collection<FileObject> find(final ResolutionContext ctx, final String path) {
+        List<Future<Collection<FileObject>>> futures = new ArrayList<Future<Collection<FileObject>>>();
+        Set<FileObject> result = new LinkedHashSet<FileObject>();
+        int omitted = 0;
+        for (final ResourceIndex shard : ResourceIndex.getIndexes()) {
+            if (shard == ctx.index || !shard.canLookUpNames()) {
+                continue;
+            }
+            if (ctx.inCallingThread) {
+                final Collection<FileObject> matches = findInShard(ctx, shard, path);
+                result.addAll(matches);
+                omitted += getOmittedCount(matches);
+                continue;
+            }
+            futures.add(RP.submit(new Callable<Collection<FileObject>>() {
+
+                @Override
+                public Collection<FileObject> call() throws Exception {
+                    return findInShard(ctx, shard, path);
+                }
+            }));
+        }
+        try {
+            for (Future<Collection<FileObject>> future : futures) {
+                try {
+                    final Collection<FileObject> matches = future.get();
+                    result.addAll(matches);
+                    omitted += getOmittedCount(matches);
+                } catch (ExecutionException ex) {
+                    Exceptions.printStackTrace(ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            //cancelled, keep the interrupted state for the caller
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Future<Collection<FileObject>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        //the order of the shards is arbitrary
+        List<FileObject> sorted = new ArrayList<FileObject>(result);
+        Collections.sort(sorted, new Comparator<FileObject>() {
+
+            @Override
+            public int compare(FileObject o1, FileObject o2) {
+                return o1.getPath().compareTo(o2.getPath());
+            }
+        });
+        return new RankedMatches.TopList(sorted, omitted);
+    }
+
+    private static Collection<FileObject> findInShard(ResolutionContext ctx, ResourceIndex shard, String path) {
+        //the same rules as for DEEP_PARTIAL in the own project
+        final boolean deep = ctx.options.partialMatching && ctx.options.deepPartialMatching;
+        Collection<FileObject> matches = shard.findByPath(path, deep);
+        return null == matches ? Collections.<FileObject>emptyList() : matches;
+    }
+
+    /**
+     * @return the number of the matches of a shard, which have been dropped
+     * by its bounded scan
+     */
+    private static int getOmittedCount(Collection<FileObject> matches) {
+        return matches instanceof RankedMatches.TopList ? ((RankedMatches.TopList) matches).getOmittedCount() : 0;
+    }
+}
@@ -15,9 +15,17 @@
  */
 package de.markiewb.netbeans.plugins.resourcehyperlink.options;
 
+import de.markiewb.netbeans.plugins.resourcehyperlink.StrategyDefaults;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Map;
 import java.util.prefs.Preferences;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.AbstractTableModel;
+import org.openide.util.NbBundle;
 import org.openide.util.NbPreferences;
 
 public final class ConfigPanel extends javax.swing.JPanel {
@@ -25,15 +33,65 @@ public final class ConfigPanel extends javax.swing.JPanel {
     private final ConfigOptionsPanelController controller;
     public static final boolean PARTIAL_MATCHING_DEFAULT = true;
     public static final String PARTIAL_MATCHING = "partialMatching";
+    public static final boolean DEEP_PARTIAL_MATCHING_DEFAULT = false;
+    public static final String DEEP_PARTIAL_MATCHING = "deepPartialMatching";
+    public static final int LOOKUP_BUDGET_DEFAULT = 50;
+    public static final String LOOKUP_BUDGET = "lookupBudget";
+    public static final boolean ASYNC_RESOLUTION_DEFAULT = true;
+    public static final String ASYNC_RESOLUTION = "asyncResolution";
+    public static final boolean STOP_AT_FIRST_EXACT_MATCH_DEFAULT = false;
+    public static final String STOP_AT_FIRST_EXACT_MATCH = "stopAtFirstExactMatch";
+    public static final boolean WORKSPACE_SEARCH_DEFAULT = false;
+    public static final String WORKSPACE_SEARCH = "workspaceSearch";
+    public static final boolean STRATEGY_ENABLED_DEFAULT = true;
+    private static final int MAX_PRIORITY = 9999;
+    private final StrategyTableModel strategyModel = new StrategyTableModel();
+
+    /**
+     * @param strategy the name of the strategy
+     * @return the key of the flag, whether the strategy is enabled
+     */
+    public static String strategyEnabledKey(String strategy) {
+        return "strategy." + strategy + ".enabled";
+    }
+
+    /**
+     * @param strategy the name of the strategy
+     * @return the key of the priority of the strategy, the default is
+     * {@link StrategyDefaults#getDefaultPriorities()}
+     */
+    public static String strategyPriorityKey(String strategy) {
+        return "strategy." + strategy + ".priority";
+    }
 
     ConfigPanel(final ConfigOptionsPanelController controller) {
         this.controller = controller;
         initComponents();
-        cbPartialMatch.addActionListener(new ActionListener() {
+        final ActionListener changeListener = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 controller.changed();
             }
+        };
+        cbPartialMatch.addActionListener(changeListener);
+        cbDeepPartialMatch.addActionListener(changeListener);
+        cbAsyncResolution.addActionListener(changeListener);
+        cbStopAtFirstExactMatch.addActionListener(changeListener);
+        cbWorkspaceSearch.addActionListener(changeListener);
+        spLookupBudget.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                controller.changed();
+            }
+        });
+        tblStrategies.setModel(strategyModel);
+        tblStrategies.getColumnModel().getColumn(StrategyTableModel.COLUMN_ENABLED).setMaxWidth(80);
+        tblStrategies.getColumnModel().getColumn(StrategyTableModel.COLUMN_PRIORITY).setMaxWidth(80);
+        strategyModel.addTableModelListener(new TableModelListener() {
+            @Override
+            public void tableChanged(TableModelEvent e) {
+                controller.changed();
+            }
         });
     }
 
@@ -47,11 +105,38 @@ public final class ConfigPanel extends javax.swing.JPanel {
 
         cbPartialMatch = new javax.swing.JCheckBox();
         jLabel1 = new javax.swing.JLabel();
+        cbDeepPartialMatch = new javax.swing.JCheckBox();
+        lblLookupBudget = new javax.swing.JLabel();
+        spLookupBudget = new javax.swing.JSpinner();
+        cbAsyncResolution = new javax.swing.JCheckBox();
+        cbStopAtFirstExactMatch = new javax.swing.JCheckBox();
+        cbWorkspaceSearch = new javax.swing.JCheckBox();
+        lblStrategies = new javax.swing.JLabel();
+        spStrategies = new javax.swing.JScrollPane();
+        tblStrategies = new javax.swing.JTable();
 
         org.openide.awt.Mnemonics.setLocalizedText(cbPartialMatch, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.cbPartialMatch.text")); // NOI18N
 
         org.openide.awt.Mnemonics.setLocalizedText(jLabel1, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.jLabel1.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(cbDeepPartialMatch, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.cbDeepPartialMatch.text")); // NOI18N
+
+        lblLookupBudget.setLabelFor(spLookupBudget);
+        org.openide.awt.Mnemonics.setLocalizedText(lblLookupBudget, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.lblLookupBudget.text")); // NOI18N
+
+        spLookupBudget.setModel(new javax.swing.SpinnerNumberModel(50, 0, 10000, 10));
+
+        org.openide.awt.Mnemonics.setLocalizedText(cbAsyncResolution, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.cbAsyncResolution.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(cbStopAtFirstExactMatch, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.cbStopAtFirstExactMatch.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(cbWorkspaceSearch, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.cbWorkspaceSearch.text")); // NOI18N
+
+        lblStrategies.setLabelFor(tblStrategies);
+        org.openide.awt.Mnemonics.setLocalizedText(lblStrategies, org.openide.util.NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.lblStrategies.text")); // NOI18N
+
+        spStrategies.setViewportView(tblStrategies);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -62,7 +147,19 @@ public final class ConfigPanel extends javax.swing.JPanel {
                     .addGroup(layout.createSequentialGroup()
                         .addGap(21, 21, 21)
                         .addComponent(jLabel1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
-                    .addComponent(cbPartialMatch))
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(21, 21, 21)
+                        .addComponent(cbDeepPartialMatch))
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(lblLookupBudget)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(spLookupBudget, javax.swing.GroupLayout.PREFERRED_SIZE, 70, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addComponent(cbPartialMatch)
+                    .addComponent(cbAsyncResolution)
+                    .addComponent(cbStopAtFirstExactMatch)
+                    .addComponent(cbWorkspaceSearch)
+                    .addComponent(lblStrategies)
+                    .addComponent(spStrategies, javax.swing.GroupLayout.PREFERRED_SIZE, 500, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
         layout.setVerticalGroup(
@@ -72,12 +169,34 @@ public final class ConfigPanel extends javax.swing.JPanel {
                 .addComponent(cbPartialMatch)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jLabel1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(cbDeepPartialMatch)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(lblLookupBudget)
+                    .addComponent(spLookupBudget, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(cbAsyncResolution)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(cbStopAtFirstExactMatch)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(cbWorkspaceSearch)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(lblStrategies)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(spStrategies, javax.swing.GroupLayout.PREFERRED_SIZE, 200, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addContainerGap(22, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
 
     void load() {
         cbPartialMatch.setSelected(NbPreferences.forModule(ConfigPanel.class).getBoolean(PARTIAL_MATCHING, PARTIAL_MATCHING_DEFAULT));
+        cbDeepPartialMatch.setSelected(NbPreferences.forModule(ConfigPanel.class).getBoolean(DEEP_PARTIAL_MATCHING, DEEP_PARTIAL_MATCHING_DEFAULT));
+        spLookupBudget.setValue(NbPreferences.forModule(ConfigPanel.class).getInt(LOOKUP_BUDGET, LOOKUP_BUDGET_DEFAULT));
+        cbAsyncResolution.setSelected(NbPreferences.forModule(ConfigPanel.class).getBoolean(ASYNC_RESOLUTION, ASYNC_RESOLUTION_DEFAULT));
+        cbStopAtFirstExactMatch.setSelected(NbPreferences.forModule(ConfigPanel.class).getBoolean(STOP_AT_FIRST_EXACT_MATCH, STOP_AT_FIRST_EXACT_MATCH_DEFAULT));
+        cbWorkspaceSearch.setSelected(NbPreferences.forModule(ConfigPanel.class).getBoolean(WORKSPACE_SEARCH, WORKSPACE_SEARCH_DEFAULT));
+        strategyModel.load();
     }
 
     void store() {
@@ -86,6 +205,33 @@ public final class ConfigPanel extends javax.swing.JPanel {
         }else{
             NbPreferences.forModule(ConfigPanel.class).remove(PARTIAL_MATCHING);
         }
+        if (cbDeepPartialMatch.isSelected() != DEEP_PARTIAL_MATCHING_DEFAULT){
+            NbPreferences.forModule(ConfigPanel.class).putBoolean(DEEP_PARTIAL_MATCHING, cbDeepPartialMatch.isSelected());
+        }else{
+            NbPreferences.forModule(ConfigPanel.class).remove(DEEP_PARTIAL_MATCHING);
+        }
+        final int lookupBudget = ((Number) spLookupBudget.getValue()).intValue();
+        if (lookupBudget != LOOKUP_BUDGET_DEFAULT){
+            NbPreferences.forModule(ConfigPanel.class).putInt(LOOKUP_BUDGET, lookupBudget);
+        }else{
+            NbPreferences.forModule(ConfigPanel.class).remove(LOOKUP_BUDGET);
+        }
+        if (cbAsyncResolution.isSelected() != ASYNC_RESOLUTION_DEFAULT){
+            NbPreferences.forModule(ConfigPanel.class).putBoolean(ASYNC_RESOLUTION, cbAsyncResolution.isSelected());
+        }else{
+            NbPreferences.forModule(ConfigPanel.class).remove(ASYNC_RESOLUTION);
+        }
+        if (cbStopAtFirstExactMatch.isSelected() != STOP_AT_FIRST_EXACT_MATCH_DEFAULT){
+            NbPreferences.forModule(ConfigPanel.class).putBoolean(STOP_AT_FIRST_EXACT_MATCH, cbStopAtFirstExactMatch.isSelected());
+        }else{
+            NbPreferences.forModule(ConfigPanel.class).remove(STOP_AT_FIRST_EXACT_MATCH);
+        }
+        if (cbWorkspaceSearch.isSelected() != WORKSPACE_SEARCH_DEFAULT){
+            NbPreferences.forModule(ConfigPanel.class).putBoolean(WORKSPACE_SEARCH, cbWorkspaceSearch.isSelected());
+        }else{
+            NbPreferences.forModule(ConfigPanel.class).remove(WORKSPACE_SEARCH);
+        }
+        strategyModel.store();
     }
 
     boolean valid() {
@@ -94,7 +240,128 @@ public final class ConfigPanel extends javax.swing.JPanel {
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JCheckBox cbAsyncResolution;
+    private javax.swing.JCheckBox cbDeepPartialMatch;
     private javax.swing.JCheckBox cbPartialMatch;
+    private javax.swing.JCheckBox cbStopAtFirstExactMatch;
+    private javax.swing.JCheckBox cbWorkspaceSearch;
     private javax.swing.JLabel jLabel1;
+    private javax.swing.JLabel lblLookupBudget;
+    private javax.swing.JLabel lblStrategies;
+    private javax.swing.JSpinner spLookupBudget;
+    private javax.swing.JScrollPane spStrategies;
+    private javax.swing.JTable tblStrategies;
     // End of variables declaration//GEN-END:variables
+
+    /**
+     * One row per strategy with its enable flag and its priority.
+     */
+    private static final class StrategyTableModel extends AbstractTableModel {
+
+        static final int COLUMN_ENABLED = 0;
+        static final int COLUMN_STRATEGY = 1;
+        static final int COLUMN_PRIORITY = 2;
+        private final String[] strategies;
+        private final int[] defaultPriorities;
+        private final boolean[] enabled;
+        private final int[] priorities;
+
+        StrategyTableModel() {
+            final Map<String, Integer> defaults = StrategyDefaults.getDefaultPriorities();
+            strategies = defaults.keySet().toArray(new String[defaults.size()]);
+            defaultPriorities = new int[strategies.length];
+            for (int i = 0; i < strategies.length; i++) {
+                defaultPriorities[i] = defaults.get(strategies[i]);
+            }
+            enabled = new boolean[strategies.length];
+            priorities = new int[strategies.length];
+        }
+
+        void load() {
+            for (int i = 0; i < strategies.length; i++) {
+                enabled[i] = NbPreferences.forModule(ConfigPanel.class).getBoolean(strategyEnabledKey(strategies[i]), STRATEGY_ENABLED_DEFAULT);
+                priorities[i] = NbPreferences.forModule(ConfigPanel.class).getInt(strategyPriorityKey(strategies[i]), defaultPriorities[i]);
+            }
+            fireTableDataChanged();
+        }
+
+        void store() {
+            for (int i = 0; i < strategies.length; i++) {
+                final String name = strategies[i];
+                if (enabled[i] != STRATEGY_ENABLED_DEFAULT) {
+                    NbPreferences.forModule(ConfigPanel.class).putBoolean(strategyEnabledKey(name), enabled[i]);
+                } else {
+                    NbPreferences.forModule(ConfigPanel.class).remove(strategyEnabledKey(name));
+                }
+                if (priorities[i] != defaultPriorities[i]) {
+                    NbPreferences.forModule(ConfigPanel.class).putInt(strategyPriorityKey(name), priorities[i]);
+                } else {
+                    NbPreferences.forModule(ConfigPanel.class).remove(strategyPriorityKey(name));
+                }
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return strategies.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 3;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            switch (column) {
+                case COLUMN_ENABLED:
+                    return NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.tblStrategies.enabled");
+                case COLUMN_STRATEGY:
+                    return NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.tblStrategies.strategy");
+                default:
+                    return NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.tblStrategies.priority");
+            }
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case COLUMN_ENABLED:
+                    return Boolean.class;
+                case COLUMN_STRATEGY:
+                    return String.class;
+                default:
+                    return Integer.class;
+            }
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return COLUMN_STRATEGY != column;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            switch (column) {
+                case COLUMN_ENABLED:
+                    return enabled[row];
+                case COLUMN_STRATEGY:
+                    return NbBundle.getMessage(ConfigPanel.class, "ConfigPanel.strategy." + strategies[row]);
+                default:
+                    return priorities[row];
+            }
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            if (COLUMN_ENABLED == column) {
+                enabled[row] = Boolean.TRUE.equals(value);
+            } else if (COLUMN_PRIORITY == column && value instanceof Number) {
+                priorities[row] = Math.max(0, Math.min(MAX_PRIORITY, ((Number) value).intValue()));
+            } else {
+                return;
+            }
+            fireTableCellUpdated(row, column);
+        }
+    }
 }
@@ -15,6 +15,16 @@ public class NewMain1 {
         System.out.println("de.markiewb.netbeans.plugins.resourcehyperlink.ResourceHyperlinkProvider");
         System.out.println("D:\\ws\\nb-resource-hyperlink-at-cursor\\doc\\screenshot-1.0.0.png");
         System.out.println("D:/ws/nb-resource-hyperlink-at-cursor/doc/screenshot-1.0.0.png");
+        System.out.println("classpath:/TestResource.txt"); // 1 match
+        System.out.println("file:/etc/hosts"); // 1 match (not on Windows)
+        System.out.println("de.markiewb.netbeans.plugins.resourcehyperlink.ResultTO"); // 1 match
+        System.out.println("<html>Hyper</html>"); // no match, not a resource
+        System.out.println("foo/"); // no match, folder
+        System.out.println("org/junit/Test.class"); // 1 match in junit.jar
+        System.out.println("/META-INF/MANIFEST.MF"); // a match per archive on the classpath
+        System.out.println("**/*.txt"); // pattern, all text files
+        System.out.println("classpath*:foo/*.java"); // pattern, 1 match
+        System.out.println("Are you sure?"); // no pattern
         System.out.println("filename = " + 1 + "help.png"
                 + new BigDecimal("0"));
     }
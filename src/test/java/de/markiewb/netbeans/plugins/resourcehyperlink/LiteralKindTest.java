@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 markiewb.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.markiewb.netbeans.plugins.resourcehyperlink;
+
+import java.io.File;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * The classification of the literals, which decides the strategies to run.
+ *
+ * @author markiewb
+ */
+public class LiteralKindTest {
+
+    @Test
+    public void relativePath() {
+        assertKind(LiteralKind.RELATIVE_PATH, "com/foo/Bar.properties");
+        assertKind(LiteralKind.RELATIVE_PATH, "./foo.txt");
+        assertKind(LiteralKind.RELATIVE_PATH, "../doc/screenshot-1.0.0.png");
+        assertKind(LiteralKind.RELATIVE_PATH, "org/junit/Test.class");
+    }
+
+    @Test
+    public void absolutePath() {
+        if ('/' == File.separatorChar) {
+            assertKind(LiteralKind.ABSOLUTE_PATH, "/home/foo/bar.txt");
+            assertKind(LiteralKind.ABSOLUTE_PATH, "/META-INF/MANIFEST.MF");
+        } else {
+            assertKind(LiteralKind.ABSOLUTE_PATH, "C:\\foo\\bar.txt");
+            assertKind(LiteralKind.ABSOLUTE_PATH, "D:/ws/doc/screenshot-1.0.0.png");
+            assertKind(LiteralKind.ABSOLUTE_PATH, "\\\\server\\share\\bar.txt");
+        }
+    }
+
+    @Test
+    public void className() {
+        assertKind(LiteralKind.CLASS_NAME, "com.foo.Bar");
+        assertKind(LiteralKind.CLASS_NAME, "com.foo.Bar$Inner");
+        assertKind(LiteralKind.CLASS_NAME, "de.markiewb.netbeans.plugins.resourcehyperlink.ResultTO");
+    }
+
+    @Test
+    public void fileName() {
+        assertKind(LiteralKind.FILE_NAME, "bar.txt");
+        assertKind(LiteralKind.FILE_NAME, "MyTest-context.xml");
+        assertKind(LiteralKind.FILE_NAME, "help.png");
+        assertKind(LiteralKind.FILE_NAME, "TestResource");
+        //the last segment is not capitalized
+        assertKind(LiteralKind.FILE_NAME, "com.foo.bar");
+        //no package
+        assertKind(LiteralKind.FILE_NAME, "MANIFEST.MF");
+        assertKind(LiteralKind.FILE_NAME, "README.TXT");
+        assertKind(LiteralKind.FILE_NAME, "LICENSE.TXT");
+    }
+
+    @Test
+    public void leadingSlashIsLookedUpBelowTheFolders() {
+        //getResource("/com/foo/bar.properties"), on Unix it looks absolute
+        final LiteralKind kind = LiteralKind.of("/com/foo/bar.properties");
+        assertTrue(ResolutionStrategy.SOURCE_ROOTS.appliesTo(kind));
+        assertTrue(ResolutionStrategy.PROJECT_ROOT.appliesTo(kind));
+        assertTrue(ResolutionStrategy.CURRENT_DIRECTORY.appliesTo(kind));
+        assertEquals("com/foo/bar.properties", ResolutionStrategy.toRelativePath("/com/foo/bar.properties"));
+        assertEquals("com/foo/bar.properties", ResolutionStrategy.toRelativePath("com/foo/bar.properties"));
+        assertNull(ResolutionStrategy.toRelativePath("/"));
+    }
+
+    @Test
+    public void uri() {
+        assertKind(LiteralKind.URI, "classpath:com/foo/bar.xml");
+        assertKind(LiteralKind.URI, "classpath:/TestResource.txt");
+        assertKind(LiteralKind.URI, "CLASSPATH:/TestResource.txt");
+        assertKind(LiteralKind.URI, "file:/etc/hosts");
+    }
+
+    @Test
+    public void glob() {
+        assertKind(LiteralKind.GLOB, "db/migration/*.sql");
+        assertKind(LiteralKind.GLOB, "**/*.txt");
+        assertKind(LiteralKind.GLOB, "classpath*:foo/*.java");
+        assertKind(LiteralKind.GLOB, "classpath:META-INF/**/*.xml");
+        assertKind(LiteralKind.GLOB, "file?.txt");
+    }
+
+    @Test
+    public void notAResource() {
+        assertKind(LiteralKind.NOT_A_RESOURCE, "");
+        assertKind(LiteralKind.NOT_A_RESOURCE, "<html>Hyper</html>");
+        assertKind(LiteralKind.NOT_A_RESOURCE, "foo/");
+        assertKind(LiteralKind.NOT_A_RESOURCE, "line\nbreak");
+        assertKind(LiteralKind.NOT_A_RESOURCE, "a|b");
+        assertKind(LiteralKind.NOT_A_RESOURCE, "\"quoted\"");
+    }
+
+    @Test
+    public void questionIsNoPattern() {
+        assertKind(LiteralKind.FILE_NAME, "Are you sure?");
+    }
+
+    private static void assertKind(LiteralKind expected, String literal) {
+        assertEquals(literal, expected, LiteralKind.of(literal));
+    }
+}